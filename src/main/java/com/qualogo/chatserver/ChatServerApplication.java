@@ -2,12 +2,14 @@ package com.qualogo.chatserver;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * The ChatServerApplication class serves as the entry point for the Spring Boot application.
  * It contains the main method which is the starting point of the Java application.
  */
 @SpringBootApplication
+@EnableScheduling
 public class ChatServerApplication {
 
     /**
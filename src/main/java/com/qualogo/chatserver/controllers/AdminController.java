@@ -0,0 +1,70 @@
+package com.qualogo.chatserver.controllers;
+
+import com.qualogo.chatserver.service.ChatService;
+import com.qualogo.chatserver.service.ExportFormat;
+import com.qualogo.chatserver.service.MessageExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    @Autowired
+    private MessageExportService messageExportService;
+
+    /**
+     * Export the full message history of a chat room.
+     * The messages are written to the response while they are read from the database, on an async request thread,
+     * so the export of a large room neither holds a servlet thread nor has to fit in memory.
+     * 
+     * @param roomId The ID of the chat room to export.
+     * @param format The format of the export, ndjson or csv.
+     * @return The messages of the room, oldest first, as a file attachment.
+     */
+    @Operation(summary = "Export messages", description = "Streams the full history of the chat room as NDJSON or CSV, oldest message first; requires the admin role")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully started the export",
+                content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+        @ApiResponse(responseCode = "400", description = "Invalid room id or format"),
+        @ApiResponse(responseCode = "403", description = "The user is not an admin")
+    })
+    @GetMapping("/rooms/{roomId}/export")
+    public ResponseEntity<StreamingResponseBody> exportMessages(@Parameter(description = "The ID of the chat room")
+            @PathVariable String roomId,
+            @Parameter(description = "The format of the export, ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format) {
+        ChatService.requireValidRoom(roomId);
+        ExportFormat exportFormat = parseFormat(format);
+        StreamingResponseBody body = out -> messageExportService.export(roomId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(roomId + "." + exportFormat.extension()).build().toString())
+                .body(body);
+    }
+
+    private static ExportFormat parseFormat(String format) {
+        try {
+            return ExportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+    }
+}
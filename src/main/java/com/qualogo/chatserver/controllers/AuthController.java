@@ -3,16 +3,20 @@ package com.qualogo.chatserver.controllers;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -30,6 +34,7 @@ import com.qualogo.chatserver.payload.response.MessageResponse;
 import com.qualogo.chatserver.repository.RoleRepository;
 import com.qualogo.chatserver.repository.UserRepository;
 import com.qualogo.chatserver.security.jwt.JwtUtils;
+import com.qualogo.chatserver.security.services.PasswordHashingExecutor;
 import com.qualogo.chatserver.security.services.UserDetailsImpl;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -51,19 +56,63 @@ public class AuthController {
   @Autowired
   JwtUtils jwtUtils;
 
+  @Autowired
+  PasswordHashingExecutor passwordHashingExecutor;
+
   /**
    * Authenticates a user based on the provided login request.
+   * The password is checked on the password hashing pool, releasing the request thread meanwhile.
    *
    * @param loginRequest the login request containing the username and password
-   * @return a ResponseEntity containing the JWT token and user details if authentication is successful
+   * @return a future ResponseEntity containing the JWT token and user details if authentication is successful,
+   *         or a 503 response if the password hashing pool is saturated
    */
   @PostMapping("/signin")
-  public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+  public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    return offload("signin", () -> signin(loginRequest));
+  }
+
+  /**
+   * Registers a new user based on the provided signup request.
+   * The password is hashed on the password hashing pool, releasing the request thread meanwhile.
+   *
+   * @param signUpRequest the signup request containing the username, email, password, and roles
+   * @return a future ResponseEntity containing a success message if registration is successful, an error message if the username or email is already in use,
+   *         or a 503 response if the password hashing pool is saturated
+   */
+  @PostMapping("/signup")
+  public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
+    return offload("signup", () -> signup(signUpRequest));
+  }
 
+  /**
+   * Runs a request on the password hashing pool, or sheds it when the pool is saturated.
+   *
+   * @param operation the name of the operation
+   * @param task the handling of the request
+   * @return a future ResponseEntity, or a completed 503 response if the pool queue is full
+   */
+  private CompletableFuture<ResponseEntity<?>> offload(String operation, Supplier<ResponseEntity<?>> task) {
+    try {
+      return passwordHashingExecutor.submit(operation, task);
+    } catch (RejectedExecutionException ex) {
+      return CompletableFuture.completedFuture(ResponseEntity
+          .status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, "1")
+          .body(new MessageResponse("Error: Server is busy, please try again later.")));
+    }
+  }
+
+  /**
+   * Checks the credentials of a login request and issues a JWT token.
+   *
+   * @param loginRequest the login request containing the username and password
+   * @return a ResponseEntity containing the JWT token and user details
+   */
+  private ResponseEntity<?> signin(LoginRequest loginRequest) {
     Authentication authentication = authenticationManager.authenticate(
         new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
 
-    SecurityContextHolder.getContext().setAuthentication(authentication);
     String jwt = jwtUtils.generateJwtToken(authentication);
     
     UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();    
@@ -79,13 +128,12 @@ public class AuthController {
   }
 
   /**
-   * Registers a new user based on the provided signup request.
+   * Creates the account of a signup request.
    *
    * @param signUpRequest the signup request containing the username, email, password, and roles
    * @return a ResponseEntity containing a success message if registration is successful, or an error message if the username or email is already in use
    */
-  @PostMapping("/signup")
-  public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
+  private ResponseEntity<?> signup(SignupRequest signUpRequest) {
     if (userRepository.existsByUsername(signUpRequest.getUsername())) {
       return ResponseEntity
           .badRequest()
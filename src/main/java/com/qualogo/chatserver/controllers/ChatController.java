@@ -1,9 +1,16 @@
 package com.qualogo.chatserver.controllers;
 
 import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
 import com.qualogo.chatserver.service.ChatService;
+import com.qualogo.chatserver.service.ChatStreamService;
+import com.qualogo.chatserver.service.LongPollService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,12 +24,24 @@ import java.util.List;
 @RequestMapping("/api/chat")
 public class ChatController {
 
+    /**
+     * Response header holding the cursor of the next page of messages.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private ChatStreamService chatStreamService;
+
+    @Autowired
+    private LongPollService longPollService;
+
     /**
      * Join a chat room.
      * 
+     * @param roomId The ID of the chat room to join.
      * @return A string message indicating the result of the join operation.
      */
     @Operation(summary = "Join a chat room", description = "Enables users to join the chat room")
@@ -31,13 +50,15 @@ public class ChatController {
                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = String.class)))
     })
     @PostMapping("/joinRoom")
-    public String joinRoom() {
-        return chatService.joinRoom();
+    public String joinRoom(@Parameter(description = "The ID of the chat room")
+            @RequestParam(defaultValue = ChatService.DEFAULT_ROOM) String roomId) {
+        return chatService.joinRoom(roomId);
     }
 
     /**
-     * Send a message to the chat room.
+     * Send a message to a chat room.
      * 
+     * @param roomId The ID of the chat room to send the message to.
      * @param message The message to be sent.
      * @return A string message indicating the result of the send operation.
      */
@@ -47,26 +68,85 @@ public class ChatController {
                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = String.class)))
     })
     @PostMapping("/send")
-    public String sendMessage(@Parameter(description = "The message to be sent", required = true)
+    public String sendMessage(@Parameter(description = "The ID of the chat room")
+            @RequestParam(defaultValue = ChatService.DEFAULT_ROOM) String roomId,
+            @Parameter(description = "The message to be sent", required = true)
             @RequestParam String message) {
-        return chatService.sendMessage(message);
+        return chatService.sendMessage(roomId, message);
     }
 
     /**
-     * Retrieve messages from the chat room since a given timestamp.
+     * Retrieve one page of messages from a chat room since a given timestamp or after a cursor.
      * 
-     * @param timestamp The timestamp from which to retrieve messages (in milliseconds).
-     * @return A list of chat messages since the given timestamp.
+     * @param roomId The ID of the chat room to retrieve messages from.
+     * @param timestamp The timestamp from which to retrieve messages (in milliseconds), used when no cursor is given.
+     * @param cursor The cursor returned in the X-Next-Cursor header of the previous page.
+     * @param limit The maximum number of messages to return.
+     * @return The page of chat messages, with the cursor of the next page in the X-Next-Cursor header if there is one.
      */
-    @Operation(summary = "Retrieve messages", description = "Retrieves the history of the chat room from the given timestamp")
+    @Operation(summary = "Retrieve messages", description = "Retrieves one page of the history of the chat room from the given timestamp or cursor; the X-Next-Cursor response header holds the cursor of the next page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved messages",
                 content = @Content(mediaType = "application/json", schema = @Schema(implementation = ChatMessage.class, type = "array")))
     })
     @GetMapping("/receive")
-    public List<ChatMessage> receiveMessages(@Parameter(description = "The timestamp from which to retrieve messages (in milliseconds)", required = true)
-            @RequestParam long timestamp) {
-        return chatService.getMessagesSince(timestamp);
+    public ResponseEntity<List<ChatMessage>> receiveMessages(@Parameter(description = "The ID of the chat room")
+            @RequestParam(defaultValue = ChatService.DEFAULT_ROOM) String roomId,
+            @Parameter(description = "The timestamp from which to retrieve messages (in milliseconds), required when no cursor is given")
+            @RequestParam(required = false) Long timestamp,
+            @Parameter(description = "The cursor of the page to retrieve, as returned in the X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "The maximum number of messages to return")
+            @RequestParam(required = false) Integer limit) {
+        MessagePage page = chatService.getMessages(roomId, timestamp, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getMessages());
+    }
+
+    /**
+     * Retrieve messages from a chat room since a given timestamp, waiting for a new message if there is none yet.
+     * 
+     * @param roomId The ID of the chat room to retrieve messages from.
+     * @param timestamp The timestamp from which to retrieve messages (in milliseconds).
+     * @param wait Whether to wait for a new message when none exists since the timestamp.
+     * @return A deferred list of chat messages, empty if no message was sent before the poll timed out.
+     */
+    @Operation(summary = "Long-poll messages", description = "Retrieves the history of the chat room from the given timestamp, waiting until a message is sent or the poll times out when there is none yet")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved messages",
+                content = @Content(mediaType = "application/json", schema = @Schema(implementation = ChatMessage.class, type = "array")))
+    })
+    @GetMapping(value = "/receive", params = "wait=true")
+    public DeferredResult<List<ChatMessage>> waitForMessages(@Parameter(description = "The ID of the chat room")
+            @RequestParam(defaultValue = ChatService.DEFAULT_ROOM) String roomId,
+            @Parameter(description = "The timestamp from which to retrieve messages (in milliseconds)", required = true)
+            @RequestParam long timestamp,
+            @Parameter(description = "Wait for a new message when none exists since the timestamp")
+            @RequestParam boolean wait) {
+        return longPollService.waitForMessagesSince(roomId, timestamp);
+    }
+
+    /**
+     * Stream new messages of a chat room as Server-Sent Events.
+     * 
+     * @param roomId The ID of the chat room to stream messages of.
+     * @param lastEventId The ID of the last message received, sent by the browser when it reconnects.
+     * @return An emitter streaming each new message as an event whose ID is the message ID.
+     */
+    @Operation(summary = "Stream messages", description = "Streams new messages of the chat room as Server-Sent Events, resuming after the Last-Event-ID if given")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully opened the message stream",
+                content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = ChatMessage.class)))
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages(@Parameter(description = "The ID of the chat room")
+            @RequestParam(defaultValue = ChatService.DEFAULT_ROOM) String roomId,
+            @Parameter(description = "The ID of the last message received")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return chatStreamService.subscribe(roomId, lastEventId);
     }
 
     /**
@@ -2,19 +2,31 @@ package com.qualogo.chatserver.models;
 
 import jakarta.persistence.*;
 import io.swagger.v3.oas.annotations.media.Schema;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Represents a chat message entity.
  */
 @Entity
+@Table(name = "chat_message",
+    indexes = {
+      @Index(name = "idx_chat_message_room_timestamp_id", columnList = "room_id, timestamp, id")
+    })
 @Schema(description = "Chat message entity")
 public class ChatMessage {
 
+    /**
+     * Assigned by {@code MessageIdGenerator}; ids sort by creation time.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @Schema(description = "Unique identifier of the message", example = "1")
+    @Schema(description = "Unique identifier of the message, ordered by creation time", example = "379014237327982592")
     private long id;
 
+    @Column(name = "room_id", nullable = false, length = 50)
+    @ColumnDefault("'general'")
+    @Schema(description = "Identifier of the room the message was sent to", example = "general")
+    private String roomId;
+
     @Schema(description = "Username of the sender", example = "thien_tran")
     private String username;
     
@@ -42,6 +54,34 @@ public class ChatMessage {
         this.timestamp = System.currentTimeMillis();
     }
 
+    /**
+     * Constructs a new ChatMessage in the specified room with the specified username and message.
+     * The timestamp is set to the current system time.
+     *
+     * @param roomId the identifier of the room the message is sent to
+     * @param username the username of the sender
+     * @param message the content of the message
+     */
+    public ChatMessage(String roomId, String username, String message) {
+        this(username, message);
+        this.roomId = roomId;
+    }
+
+    /**
+     * Constructs a new ChatMessage with a generated id in the specified room with the specified username and message.
+     * The timestamp is the creation time embedded in the id, so messages ordered by timestamp are also ordered by id.
+     *
+     * @param id the generated identifier of the message
+     * @param roomId the identifier of the room the message is sent to
+     * @param username the username of the sender
+     * @param message the content of the message
+     * @param timestamp the creation time embedded in the id
+     */
+    public ChatMessage(long id, String roomId, String username, String message, long timestamp) {
+        this(id, username, message, timestamp);
+        this.roomId = roomId;
+    }
+
     /**
      * Constructs a new ChatMessage with the specified id, username, message, and timestamp.
      *
@@ -75,6 +115,24 @@ public class ChatMessage {
         this.id = id;
     }
 
+    /**
+     * Returns the identifier of the room the message was sent to.
+     *
+     * @return the room id
+     */
+    public String getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * Sets the identifier of the room the message was sent to.
+     *
+     * @param roomId the room id to set
+     */
+    public void setRoomId(String roomId) {
+        this.roomId = roomId;
+    }
+
     /**
      * Returns the username of the sender.
      *
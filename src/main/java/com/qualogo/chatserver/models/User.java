@@ -8,10 +8,13 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import com.qualogo.chatserver.security.services.UserChangeListener;
+
 /**
  * Represents a user entity in the chat server application.
  */
 @Entity
+@EntityListeners(UserChangeListener.class)
 @Table(name = "users", 
     uniqueConstraints = { 
       @UniqueConstraint(columnNames = "username"),
@@ -61,6 +64,13 @@ public class User {
         inverseJoinColumns = @JoinColumn(name = "role_id"))
   private Set<Role> roles = new HashSet<>();
 
+  /**
+   * The version of the user, incremented on every change including a change of its roles alone.
+   * Changing only the roles then still updates the user row, so its cached details are evicted.
+   */
+  @Version
+  private Long version;
+
   /**
    * Default constructor for the User class.
    */
@@ -169,4 +179,13 @@ public class User {
   public void setRoles(Set<Role> roles) {
     this.roles = roles;
   }
-}
\ No newline at end of file
+
+  /**
+   * Gets the version of the user.
+   * 
+   * @return the version of the user, null before it is first saved
+   */
+  public Long getVersion() {
+    return version;
+  }
+}
@@ -0,0 +1,62 @@
+package com.qualogo.chatserver.payload.response;
+
+import java.util.List;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+/**
+ * Represents one page of the message history of a chat room.
+ */
+public class MessagePage {
+
+    private List<ChatMessage> messages;
+
+    private String nextCursor;
+
+    /**
+     * Constructs a new MessagePage.
+     *
+     * @param messages the messages of the page, oldest first
+     * @param nextCursor the cursor of the next page, or null if this is the last page
+     */
+    public MessagePage(List<ChatMessage> messages, String nextCursor) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the messages of the page.
+     *
+     * @return the messages, oldest first
+     */
+    public List<ChatMessage> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Sets the messages of the page.
+     *
+     * @param messages the messages to set
+     */
+    public void setMessages(List<ChatMessage> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * Gets the cursor of the next page.
+     *
+     * @return the cursor of the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor of the next page.
+     *
+     * @param nextCursor the cursor to set
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,23 +1,107 @@
 package com.qualogo.chatserver.repository;
 
 import com.qualogo.chatserver.models.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository interface for managing {@link ChatMessage} entities.
  * Extends {@link JpaRepository} to provide CRUD operations and custom query methods.
+ * Message ids are assigned by {@link com.qualogo.chatserver.service.MessageIdGenerator}, so new messages are
+ * stored with {@link #insert(ChatMessage)} rather than {@code save}.
  */
 @Repository
-public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>, ChatMessageRepositoryCustom {
+
+    /**
+     * Number of rows fetched per round trip by the keyset queries.
+     */
+    String FETCH_SIZE = "500";
+
+    /**
+     * Selects the messages of a room after a (timestamp, id) position, as unmanaged {@link ChatMessage} objects.
+     */
+    String SELECT_MESSAGES_AFTER = "SELECT new com.qualogo.chatserver.models.ChatMessage(m.id, m.roomId, m.username, m.message, m.timestamp)"
+            + " FROM ChatMessage m WHERE m.roomId = :roomId"
+            + " AND (m.timestamp > :timestamp OR (m.timestamp = :timestamp AND m.id > :id))"
+            + " ORDER BY m.timestamp ASC, m.id ASC";
 
     /**
      * Retrieves all chat messages with a timestamp greater than the specified value.
+     * Not backed by an index and not bounded: read the history of a room with {@link #findPageAfter},
+     * or {@link #streamAfter} when all of it is needed.
      *
      * @param timestamp the timestamp to compare against.
      * @return a list of {@link ChatMessage} objects with timestamps greater than the specified value.
      */
     List<ChatMessage> findAllByTimestampGreaterThan(long timestamp);
-}
\ No newline at end of file
+
+    /**
+     * Retrieves one page of the chat messages of a room ordered by timestamp and id, starting after the given message position.
+     * Uses keyset pagination backed by the {@code (room_id, timestamp, id)} index, so the cost of a page does not grow
+     * with the number of messages before it. The rows are read straight into unmanaged {@link ChatMessage} objects,
+     * skipping the persistence context, and fetched in chunks of {@value #FETCH_SIZE}.
+     *
+     * @param roomId the identifier of the room.
+     * @param timestamp the timestamp of the position to start after.
+     * @param id the id of the position to start after.
+     * @param pageable the page size; the page number should always be 0.
+     * @return a list of {@link ChatMessage} objects of the room after the given position, oldest first.
+     */
+    @Query(SELECT_MESSAGES_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    List<ChatMessage> findPageAfter(@Param("roomId") String roomId, @Param("timestamp") long timestamp,
+            @Param("id") long id, Pageable pageable);
+
+    /**
+     * Streams the chat messages of a room ordered by timestamp and id, starting after the given message position.
+     * Rows are fetched from the database in chunks of {@value #FETCH_SIZE} as the stream is consumed, so the
+     * whole history of a room never has to fit in memory. Must be called within a transaction, and the stream closed.
+     *
+     * @param roomId the identifier of the room.
+     * @param timestamp the timestamp of the position to start after.
+     * @param id the id of the position to start after.
+     * @return a stream of {@link ChatMessage} objects of the room after the given position, oldest first.
+     */
+    @Query(SELECT_MESSAGES_AFTER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE))
+    Stream<ChatMessage> streamAfter(@Param("roomId") String roomId, @Param("timestamp") long timestamp,
+            @Param("id") long id);
+
+    /**
+     * Retrieves a chat message by id and timestamp.
+     * Naming the timestamp lets the database read the single partition holding the message.
+     *
+     * @param id the id of the message.
+     * @param timestamp the timestamp of the message.
+     * @return the message, or empty if it does not exist.
+     */
+    Optional<ChatMessage> findByIdAndTimestamp(long id, long timestamp);
+
+    /**
+     * Deletes a chat message by id and timestamp.
+     * Naming the timestamp lets the database lock and delete within the single partition holding the message.
+     *
+     * @param id the id of the message.
+     * @param timestamp the timestamp of the message.
+     * @return the number of messages deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChatMessage m WHERE m.id = :id AND m.timestamp = :timestamp")
+    int deleteByIdAndTimestamp(@Param("id") long id, @Param("timestamp") long timestamp);
+}
@@ -0,0 +1,18 @@
+package com.qualogo.chatserver.repository;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+/**
+ * Custom operations of {@link ChatMessageRepository}.
+ */
+public interface ChatMessageRepositoryCustom {
+
+    /**
+     * Inserts a new chat message whose id is already assigned.
+     * Unlike {@code save}, which merges any entity with an id and so reads it first, this always persists,
+     * letting Hibernate batch the insert.
+     *
+     * @param chatMessage the new message.
+     */
+    void insert(ChatMessage chatMessage);
+}
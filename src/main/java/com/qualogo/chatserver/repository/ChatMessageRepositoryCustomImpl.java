@@ -0,0 +1,28 @@
+package com.qualogo.chatserver.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link ChatMessageRepositoryCustom}, picked up by Spring Data from its name.
+ */
+public class ChatMessageRepositoryCustomImpl implements ChatMessageRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Persists the new message.
+     *
+     * @param chatMessage the new message.
+     */
+    @Override
+    @Transactional
+    public void insert(ChatMessage chatMessage) {
+        entityManager.persist(chatMessage);
+    }
+}
@@ -2,6 +2,7 @@ package com.qualogo.chatserver.repository;
 
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,11 +16,12 @@ import com.qualogo.chatserver.models.User;
 public interface UserRepository extends JpaRepository<User, Long> {
 
     /**
-     * Finds a User by their username.
+     * Finds a User by their username, fetching their roles in the same query.
      *
      * @param username the username of the User to find.
      * @return an Optional containing the found User, or empty if no User found.
      */
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username);
 
     /**
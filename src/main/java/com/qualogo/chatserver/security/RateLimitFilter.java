@@ -0,0 +1,175 @@
+package com.qualogo.chatserver.security;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qualogo.chatserver.security.jwt.JwtUtils;
+import com.qualogo.chatserver.security.jwt.VerifiedTokenCache;
+import com.qualogo.chatserver.service.RateLimitDecision;
+import com.qualogo.chatserver.service.RateLimitOperation;
+import com.qualogo.chatserver.service.RateLimitingService;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * RateLimitFilter charges each chat request against the policy of its {@link RateLimitOperation}.
+ * Denied requests are answered with HTTP 429 and a {@code Retry-After} header telling the client
+ * when to try again, so it can back off instead of retrying right away. Every limited response carries
+ * the remaining budget in {@code X-RateLimit-Remaining}.
+ * <p>
+ * The filter is registered ahead of the Spring Security chain, so a rejected request costs neither a user
+ * lookup nor controller dispatch. Requests are keyed on the subject of the bearer token once its signature
+ * is verified, so a client can neither rotate forged subjects to get a fresh budget nor spend the budget
+ * of another user. The verification is remembered in the {@link VerifiedTokenCache}, so repeat requests and
+ * the {@link com.qualogo.chatserver.security.jwt.AuthTokenFilter} skip it. Requests without a valid token
+ * are keyed on the client address, as resolved from the forwarded headers of the reverse proxy.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Header carrying the number of units left in the current budget.
+     */
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final int MAX_TOKEN_LENGTH = 8192;
+
+    private static final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    @Autowired
+    private RateLimitingService rateLimitingService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * Checks the rate limit of the request and rejects it when the limit is exceeded.
+     *
+     * @param request     the HttpServletRequest object
+     * @param response    the HttpServletResponse object
+     * @param filterChain the FilterChain object
+     * @throws ServletException if an error occurs during the filtering process
+     * @throws IOException      if an I/O error occurs during the filtering process
+     */
+    @Override
+    public void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitOperation operation = resolveOperation(request);
+        if (operation == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitDecision decision;
+        try {
+            decision = rateLimitingService.check(resolveSubject(request), operation);
+        } catch (RuntimeException ex) {
+            // Limiting is a protection, not a dependency: keep serving when Redis is unavailable
+            logger.warn("Cannot check rate limit, letting the request through: {}", ex.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(REMAINING_HEADER, String.valueOf(decision.getRemaining()));
+        if (decision.isAllowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, (decision.getRetryAfterMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        final Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        body.put("message", "Rate limit exceeded. Please try again in " + retryAfterSeconds + " seconds.");
+        body.put("path", request.getServletPath());
+        mapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * Maps the request to the rate limited operation it performs.
+     * The path is matched decoded and normalized, as the handler mappings see it, so an encoded or
+     * otherwise disguised path cannot reach a handler without being charged.
+     *
+     * @param request the HttpServletRequest object
+     * @return the operation, or null if the request is not rate limited
+     */
+    public RateLimitOperation resolveOperation(HttpServletRequest request) {
+        switch (urlPathHelper.getPathWithinApplication(request)) {
+            case "/api/chat/joinRoom":
+                return RateLimitOperation.JOIN;
+            case "/api/chat/send":
+                return RateLimitOperation.SEND;
+            case "/api/chat/receive":
+            case "/api/chat/stream":
+                return RateLimitOperation.RECEIVE;
+            case "/api/chat/deleteMsg":
+                return RateLimitOperation.DELETE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Determines who the request is charged to: the subject of a valid bearer token, or the client address otherwise.
+     *
+     * @param request the HttpServletRequest object
+     * @return the subject of the rate limit
+     */
+    public String resolveSubject(HttpServletRequest request) {
+        String subject = verifiedTokenSubject(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (subject != null) {
+            return subject;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Returns the subject claim of a bearer token whose signature is valid, verifying it only if it has not been before.
+     *
+     * @param headerAuth the value of the Authorization header
+     * @return the subject, or null if the header does not carry a valid token
+     */
+    private String verifiedTokenSubject(String headerAuth) {
+        if (!StringUtils.hasText(headerAuth) || !headerAuth.startsWith("Bearer ")
+                || headerAuth.length() > MAX_TOKEN_LENGTH) {
+            return null;
+        }
+        String token = headerAuth.substring(7);
+        Claims claims = verifiedTokenCache.getClaims(token);
+        if (claims == null) {
+            claims = jwtUtils.parseClaims(token);
+            if (claims == null) {
+                return null;
+            }
+            verifiedTokenCache.put(token, claims);
+        }
+        return StringUtils.hasText(claims.getSubject()) ? claims.getSubject() : null;
+    }
+}
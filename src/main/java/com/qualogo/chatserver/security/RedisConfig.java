@@ -1,15 +1,35 @@
 package com.qualogo.chatserver.security;
 
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.qualogo.chatserver.security.services.UserDetailsServiceImpl;
+import com.qualogo.chatserver.service.ChatEventRelay;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
 @Configuration
 public class RedisConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(RedisConfig.class);
+
+    @Value("${chat.relay.queueCapacity:10000}")
+    private int relayQueueCapacity;
+
     /**
      * Configures and provides a RedisTemplate bean.
      * 
@@ -24,4 +44,37 @@ public class RedisConfig {
         template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * Configures the container receiving the chat events and user invalidations published by the other nodes.
+     * Messages are handed to a single listener thread through a queue of {@code chat.relay.queueCapacity}, so
+     * they are handled in the order they were published and a burst cannot start a thread per message.
+     * Messages arriving while the queue is full are dropped.
+     *
+     * @param connectionFactory the factory to establish Redis connections
+     * @param chatEventRelay the listener relaying chat events to this node
+     * @param userDetailsService the user details service evicting changed users
+     * @param meterRegistry the registry the listener thread metrics are registered in
+     * @return a RedisMessageListenerContainer subscribed to the chat event and user invalidation channels
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+            ChatEventRelay chatEventRelay, UserDetailsServiceImpl userDetailsService, MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, relayQueueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "redis-listener");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, rejectedBy) -> logger.warn("Redis listener queue is full, dropping a cluster message"));
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "redisListener");
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(executor);
+        container.addMessageListener(chatEventRelay, new ChannelTopic(ChatEventRelay.CHANNEL));
+        container.addMessageListener(userDetailsService, new ChannelTopic(UserDetailsServiceImpl.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -1,6 +1,8 @@
 package com.qualogo.chatserver.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -41,6 +43,30 @@ public class WebSecurityConfig { // extends WebSecurityConfigurerAdapter {
         return new AuthTokenFilter();
     }
 
+    /**
+     * Creates a bean for the rate limit filter.
+     * 
+     * @return an instance of {@link RateLimitFilter}
+     */
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter();
+    }
+
+    /**
+     * Registers the rate limit filter ahead of the Spring Security filter chain, so abusive traffic is
+     * rejected before any token is verified or user loaded.
+     * 
+     * @return the registration of the {@link RateLimitFilter}
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter());
+        registration.addUrlPatterns("/api/chat/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+
     /**
      * Creates a bean for the DAO authentication provider.
      * 
@@ -0,0 +1,55 @@
+package com.qualogo.chatserver.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import com.qualogo.chatserver.security.jwt.AuthChannelInterceptor;
+
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    @Autowired
+    private AuthChannelInterceptor authChannelInterceptor;
+
+    @Value("${chat.ws.allowedOrigins:}")
+    private String[] allowedOrigins;
+
+    /**
+     * Registers the STOMP over WebSocket endpoint clients connect to.
+     * Browsers may only connect from the same origin or from one of the {@code chat.ws.allowedOrigins} patterns.
+     *
+     * @param registry the STOMP endpoint registry
+     */
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws").setAllowedOriginPatterns(allowedOrigins);
+    }
+
+    /**
+     * Configures an in-memory broker for the {@code /topic} destinations.
+     *
+     * @param registry the message broker registry
+     */
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic");
+        registry.setApplicationDestinationPrefixes("/app");
+    }
+
+    /**
+     * Authenticates inbound STOMP frames with the JWT token sent on CONNECT.
+     *
+     * @param registration the inbound channel registration
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(authChannelInterceptor);
+    }
+}
@@ -0,0 +1,108 @@
+package com.qualogo.chatserver.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.qualogo.chatserver.security.services.UserDetailsServiceImpl;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * AuthChannelInterceptor authenticates STOMP sessions.
+ * The JWT token is validated once on the CONNECT frame and the resulting user is bound to the session,
+ * so subsequent frames of the same session are not authenticated again.
+ * Clients may only SEND to the application destinations under {@value #APPLICATION_PREFIX}; the broker
+ * destinations are written by the server alone, so a client cannot publish forged messages to a room topic.
+ */
+@Component
+public class AuthChannelInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    /**
+     * The destination prefix of the frames handled by the application, see {@link com.qualogo.chatserver.security.WebSocketConfig}.
+     */
+    public static final String APPLICATION_PREFIX = "/app/";
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthChannelInterceptor.class);
+
+    /**
+     * Authenticates CONNECT frames, rejects frames of sessions that are not authenticated
+     * and rejects SEND frames to destinations outside {@value #APPLICATION_PREFIX}.
+     *
+     * @param message the inbound STOMP message
+     * @param channel the channel the message is sent to
+     * @return the message to continue with
+     * @throws BadCredentialsException if the session could not be authenticated
+     * @throws AccessDeniedException if a SEND frame targets a destination outside {@value #APPLICATION_PREFIX}
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String jwt = parseJwt(accessor);
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            if (claims == null) {
+                logger.error("Rejected STOMP connection without a valid JWT token");
+                throw new BadCredentialsException("Invalid JWT token");
+            }
+
+            String username = claims.getSubject();
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            accessor.setUser(new UsernamePasswordAuthenticationToken(
+                    userDetails,
+                    null,
+                    userDetails.getAuthorities()));
+        } else if (accessor.getUser() == null
+                && (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) || StompCommand.SEND.equals(accessor.getCommand()))) {
+            throw new BadCredentialsException("STOMP session is not authenticated");
+        }
+
+        if (StompCommand.SEND.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (destination == null || !destination.startsWith(APPLICATION_PREFIX)) {
+                logger.warn("Rejected STOMP SEND to destination {}", destination);
+                throw new AccessDeniedException("Sending to " + destination + " is not allowed");
+            }
+        }
+
+        return message;
+    }
+
+    /**
+     * Parses the JWT token from the native Authorization header of a STOMP frame.
+     *
+     * @param accessor the STOMP header accessor
+     * @return the JWT token if present, otherwise null
+     */
+    public String parseJwt(StompHeaderAccessor accessor) {
+        String headerAuth = accessor.getFirstNativeHeader("Authorization");
+
+        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+            return headerAuth.substring(7);
+        }
+
+        return null;
+    }
+}
@@ -18,6 +18,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.qualogo.chatserver.security.services.UserDetailsServiceImpl;
+
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 /**
@@ -32,6 +34,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     /**
@@ -48,10 +53,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? verify(jwt) : null;
+            if (claims != null) {
+                // The token carries the principal when stateless principals are enabled, sparing a user lookup
+                UserDetails userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+                if (userDetails == null) {
+                    userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                }
                 UsernamePasswordAuthenticationToken authentication
                         = new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -68,6 +76,24 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Verifies a JWT token, skipping the signature check for a token verified before.
+     *
+     * @param jwt the JWT token
+     * @return the claims of the token if it is valid, otherwise null
+     */
+    private Claims verify(String jwt) {
+        Claims claims = verifiedTokenCache.getClaims(jwt);
+        if (claims != null) {
+            return claims;
+        }
+        claims = jwtUtils.parseClaims(jwt);
+        if (claims != null) {
+            verifiedTokenCache.put(jwt, claims);
+        }
+        return claims;
+    }
+
     /**
      * Parses the JWT token from the request header.
      *
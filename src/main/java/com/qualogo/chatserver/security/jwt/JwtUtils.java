@@ -1,12 +1,17 @@
 package com.qualogo.chatserver.security.jwt;
 
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import com.qualogo.chatserver.security.services.UserDetailsImpl;
@@ -19,12 +24,27 @@ public class JwtUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    /**
+     * Claim holding the user's ID when the principal is carried by the token.
+     */
+    public static final String CLAIM_USER_ID = "uid";
+
+    /**
+     * Claim holding the names of the user's roles when the principal is carried by the token.
+     */
+    public static final String CLAIM_ROLES = "roles";
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwtStatelessPrincipal:false}")
+    private boolean statelessPrincipal;
+
+    private volatile Signing signing;
+
     /**
      * Generates a JWT token based on the authenticated user's details.
      *
@@ -34,21 +54,49 @@ public class JwtUtils {
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
                 .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + getJwtExpirationMs()))
-                .signWith(key(), SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(new Date((new Date()).getTime() + getJwtExpirationMs()));
+        if (isStatelessPrincipal()) {
+            builder.claim(CLAIM_USER_ID, userPrincipal.getId())
+                    .claim(CLAIM_ROLES, userPrincipal.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .collect(Collectors.toList()));
+        }
+        return builder.signWith(key(), SignatureAlgorithm.HS256).compact();
     }
 
     /**
-     * Generates a Key object from the JWT secret.
+     * Builds the user details carried by the claims of a verified token, without loading the user.
+     * Only tokens generated while {@code app.jwtStatelessPrincipal} is enabled carry them.
+     *
+     * @param claims the verified claims of the token
+     * @return the user details, or null if stateless principals are disabled or the claims do not carry them
+     */
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        if (!isStatelessPrincipal()) {
+            return null;
+        }
+        Object id = claims.get(CLAIM_USER_ID);
+        Object roles = claims.get(CLAIM_ROLES);
+        if (!(id instanceof Number) || !(roles instanceof Collection<?>) || claims.getSubject() == null) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = ((Collection<?>) roles).stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .collect(Collectors.toList());
+        return new UserDetailsImpl(((Number) id).longValue(), claims.getSubject(), null, null, authorities);
+    }
+
+    /**
+     * Returns the key derived from the JWT secret.
+     * The key is derived once and reused until the secret changes.
      *
      * @return a Key object used for signing the JWT
      */
     public Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(getJwtSecret()));
+        return signing().key();
     }
 
     /**
@@ -58,8 +106,7 @@ public class JwtUtils {
      * @return the username extracted from the token
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return signing().parser().parseClaimsJws(token).getBody().getSubject();
     }
 
     /**
@@ -69,20 +116,47 @@ public class JwtUtils {
      * @return true if the token is valid, false otherwise
      */
     public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+
+    /**
+     * Verifies a given JWT token and returns its claims, parsing the token only once.
+     *
+     * @param authToken the JWT token to verify
+     * @return the claims of the token, or null if the token is not valid
+     */
+    public Claims parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            return signing().parser().parseClaimsJws(authToken).getBody();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT signature is invalid: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * Returns the signing key and the parser verifying with it, building them on first use.
+     * The parser is immutable and thread-safe, so a single instance serves every request.
+     *
+     * @return the signing key and parser
+     */
+    private Signing signing() {
+        Signing current = signing;
+        if (current == null) {
+            Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(getJwtSecret()));
+            current = new Signing(key, Jwts.parserBuilder().setSigningKey(key).build());
+            signing = current;
+        }
+        return current;
     }
 
     /**
@@ -101,6 +175,25 @@ public class JwtUtils {
      */
     public void setJwtSecret(String jwtSecret) {
         this.jwtSecret = jwtSecret;
+        this.signing = null;
+    }
+
+    /**
+     * Indicates whether tokens carry the principal, so requests are authenticated without loading the user.
+     *
+     * @return true if stateless principals are enabled, false otherwise
+     */
+    public boolean isStatelessPrincipal() {
+        return statelessPrincipal;
+    }
+
+    /**
+     * Enables or disables stateless principals.
+     *
+     * @param statelessPrincipal true to embed the principal in generated tokens and use it when authenticating
+     */
+    public void setStatelessPrincipal(boolean statelessPrincipal) {
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     /**
@@ -120,4 +213,10 @@ public class JwtUtils {
     public void setJwtExpirationMs(int jwtExpirationMs) {
         this.jwtExpirationMs = jwtExpirationMs;
     }
+
+    /**
+     * Signing key together with the parser verifying tokens signed with it.
+     */
+    private record Signing(Key key, JwtParser parser) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.qualogo.chatserver.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache of JWT tokens whose signature has already been verified, so a token sent again skips verification.
+ * Entries are keyed by the SHA-256 hash of the token, never the token itself, hold the verified claims,
+ * and are evicted when the token expires. At most
+ * {@code app.jwtCache.maxSize} tokens are held.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.jwtCache.maxSize:10000}")
+    private long maxSize;
+
+    private Cache<String, VerifiedToken> tokens;
+
+    /**
+     * Builds the cache and registers its metrics.
+     */
+    @PostConstruct
+    public void init() {
+        tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String hash, VerifiedToken token, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String hash, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(hash, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String hash, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, "jwtTokenCache");
+    }
+
+    /**
+     * Returns the claims of a token verified before. The claims must not be modified.
+     *
+     * @param token the JWT token
+     * @return the claims of the token, or null if the token has not been verified or has expired since
+     */
+    public Claims getClaims(String token) {
+        VerifiedToken verified = tokens.getIfPresent(hash(token));
+        if (verified == null || verified.expiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return verified.claims();
+    }
+
+    /**
+     * Remembers a token whose signature has been verified.
+     * Tokens without an expiry are not cached, since they could never be evicted on time.
+     *
+     * @param token the JWT token
+     * @param claims the verified claims of the token
+     */
+    public void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null || claims.getSubject() == null) {
+            return;
+        }
+        tokens.put(hash(token), new VerifiedToken(claims, expiration.getTime()));
+    }
+
+    /**
+     * Returns the number of tokens held.
+     *
+     * @return the number of cached tokens
+     */
+    public long size() {
+        tokens.cleanUp();
+        return tokens.estimatedSize();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Claims and expiry, in epoch milliseconds, of a verified token.
+     */
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.qualogo.chatserver.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs the password hashing of sign in and sign up on a dedicated pool, so a login burst occupies
+ * at most {@code app.hashing.poolSize} threads and never the servlet threads serving chat requests.
+ * <p>
+ * At most {@code app.hashing.queueCapacity} tasks wait for a thread; beyond that, tasks are rejected
+ * with a {@link RejectedExecutionException} and the caller is expected to shed the request.
+ * The pool is exposed as the {@code passwordHashing} executor metrics, and the time tasks spend
+ * waiting and running as the {@code auth.hashing.wait} and {@code auth.hashing.duration} timers.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.hashing.poolSize:0}")
+    private int poolSize;
+
+    @Value("${app.hashing.queueCapacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer waitTimer;
+
+    /**
+     * Starts the pool and registers its metrics. A pool size of 0 uses one thread per processor.
+     */
+    @PostConstruct
+    public void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing");
+        waitTimer = Timer.builder("auth.hashing.wait")
+                .description("Time password hashing tasks wait for a thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stops the pool, letting queued tasks finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs a task on the pool.
+     *
+     * @param operation the name of the operation, used to tag the duration timer
+     * @param task the task, which hashes or checks a password
+     * @param <T> the type of the result of the task
+     * @return a future completed with the result of the task
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+        Timer durationTimer = Timer.builder("auth.hashing.duration")
+                .description("Time password hashing tasks take to run")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            long startedAt = System.nanoTime();
+            waitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                return task.get();
+            } finally {
+                durationTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }, executor);
+    }
+
+    /**
+     * Returns the number of tasks waiting for a thread.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+}
@@ -0,0 +1,48 @@
+package com.qualogo.chatserver.security.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.qualogo.chatserver.models.User;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener evicting a user from the user details caches when the user is updated or removed.
+ * The eviction runs after the transaction commits, so no node reloads the user before the change is visible.
+ * A change of the roles alone is covered too: {@link User} is versioned, so Hibernate updates the user row,
+ * and fires {@code @PostUpdate}, whenever its roles collection changes.
+ */
+public class UserChangeListener {
+
+    @Autowired
+    private ObjectProvider<UserDetailsServiceImpl> userDetailsService;
+
+    /**
+     * Evicts the changed user.
+     *
+     * @param user the updated or removed user
+     */
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        UserDetailsServiceImpl service = userDetailsService != null ? userDetailsService.getIfAvailable() : null;
+        String username = user.getUsername();
+        if (service == null || username == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    service.invalidate(username);
+                }
+            });
+        } else {
+            service.invalidate(username);
+        }
+    }
+}
@@ -1,39 +1,135 @@
 package com.qualogo.chatserver.security.services;
 
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.qualogo.chatserver.models.User;
 import com.qualogo.chatserver.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
 /**
  * Service implementation for loading user-specific data.
  * This service is used by Spring Security to load user details during authentication.
+ * <p>
+ * Loaded users are cached for {@code app.userCache.ttlSeconds}, up to {@code app.userCache.maxSize} users.
+ * A changed user is evicted on every node: {@link #invalidate(String)} publishes the username on the
+ * {@code users:invalidate} Redis channel, and each node evicts it when the message is received.
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, MessageListener {
+
+    /**
+     * The Redis channel usernames to evict are published on.
+     */
+    public static final String INVALIDATION_CHANNEL = "users:invalidate";
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.userCache.maxSize:10000}")
+    private long maxSize;
+
+    @Value("${app.userCache.ttlSeconds:300}")
+    private long ttlSeconds;
+
+    private Cache<String, UserDetailsImpl> users;
+
+    /**
+     * Builds the cache and registers its metrics.
+     */
+    @PostConstruct
+    public void init() {
+        users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "userDetailsCache");
+    }
+
     /**
      * Loads the user details by username.
+     * The user and its roles are read with a single query, so no transaction is needed for lazy loading.
      *
      * @param username the username identifying the user whose data is required.
      * @return a fully populated user record (never {@code null})
      * @throws UsernameNotFoundException if the user could not be found or the user has no GrantedAuthority
      */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetailsImpl cached = username != null ? users.getIfPresent(username) : null;
+        if (cached != null) {
+            return cached;
+        }
+
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
-        return UserDetailsImpl.build(user);
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        users.put(username, userDetails);
+        return userDetails;
+    }
+
+    /**
+     * Evicts a user from the cache of every node, after the user or its roles have changed.
+     *
+     * @param username the username of the changed user
+     */
+    public void invalidate(String username) {
+        users.invalidate(username);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, username);
+        } catch (Exception ex) {
+            // The other nodes drop the entry when its time to live expires
+            logger.error("Cannot publish the invalidation of user {}: {}", username, ex.getMessage());
+        }
+    }
+
+    /**
+     * Evicts a user changed on any node from the cache of this node.
+     *
+     * @param message the Redis Pub/Sub message carrying the username
+     * @param pattern the pattern the channel matched, if any
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object username = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (username instanceof String name) {
+            users.invalidate(name);
+        }
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns the number of users held in the cache.
+     *
+     * @return the number of cached users
+     */
+    public long getCachedUserCount() {
+        users.cleanUp();
+        return users.estimatedSize();
+    }
+}
@@ -0,0 +1,99 @@
+package com.qualogo.chatserver.service;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+/**
+ * Payload published on the cluster-wide chat event channel.
+ * It carries the id of the publishing node so a node can skip its own events.
+ */
+public class ChatEventEnvelope {
+
+    private String nodeId;
+
+    private ChatMessage message;
+
+    private boolean deleted;
+
+    /**
+     * Default constructor for deserialization.
+     */
+    public ChatEventEnvelope() {
+    }
+
+    /**
+     * Constructs a new ChatEventEnvelope.
+     *
+     * @param nodeId the id of the node publishing the event
+     * @param message the message that has been sent
+     */
+    public ChatEventEnvelope(String nodeId, ChatMessage message) {
+        this(nodeId, message, false);
+    }
+
+    /**
+     * Constructs a new ChatEventEnvelope.
+     *
+     * @param nodeId the id of the node publishing the event
+     * @param message the message that has been sent or deleted
+     * @param deleted whether the message has been deleted rather than sent
+     */
+    public ChatEventEnvelope(String nodeId, ChatMessage message, boolean deleted) {
+        this.nodeId = nodeId;
+        this.message = message;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Returns the id of the node publishing the event.
+     *
+     * @return the node id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Sets the id of the node publishing the event.
+     *
+     * @param nodeId the node id to set
+     */
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Returns the message that has been sent.
+     *
+     * @return the message
+     */
+    public ChatMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the message that has been sent.
+     *
+     * @param message the message to set
+     */
+    public void setMessage(ChatMessage message) {
+        this.message = message;
+    }
+
+    /**
+     * Indicates whether the message has been deleted rather than sent.
+     *
+     * @return true if the message has been deleted, false otherwise
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Sets whether the message has been deleted rather than sent.
+     *
+     * @param deleted the flag to set
+     */
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+}
@@ -0,0 +1,99 @@
+package com.qualogo.chatserver.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Relays chat events between the nodes of the cluster over Redis Pub/Sub.
+ * Messages accepted or deleted by this node are published on the {@code chat:events} channel, and
+ * events published by other nodes are republished locally so every node's push, stream and long-poll
+ * subscribers and read caches follow a write on any node.
+ */
+@Service
+public class ChatEventRelay implements MessageListener {
+
+    /**
+     * The Redis channel chat events are published on.
+     */
+    public static final String CHANNEL = "chat:events";
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatEventRelay.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${chat.node.id:${random.uuid}}")
+    private String nodeId;
+
+    /**
+     * Publishes a message accepted by this node to the other nodes.
+     *
+     * @param event the event carrying the sent message
+     */
+    @EventListener
+    public void onMessageSent(MessageSentEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, new ChatEventEnvelope(nodeId, event.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Cannot relay message {} to the cluster: {}", event.getMessage().getId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Publishes a message deleted on this node to the other nodes.
+     *
+     * @param event the event carrying the deleted message
+     */
+    @EventListener
+    public void onMessageDeleted(MessageDeletedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, new ChatEventEnvelope(nodeId, event.getMessage(), true));
+        } catch (Exception ex) {
+            logger.error("Cannot relay deletion of message {} to the cluster: {}", event.getMessage().getId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Republishes a message accepted or deleted by another node as a local event.
+     *
+     * @param message the Redis Pub/Sub message
+     * @param pattern the pattern the channel matched, if any
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (payload instanceof ChatEventEnvelope envelope && !nodeId.equals(envelope.getNodeId())) {
+            if (envelope.isDeleted()) {
+                eventPublisher.publishEvent(new MessageDeletedEvent(envelope.getMessage(), true));
+            } else {
+                eventPublisher.publishEvent(new MessageSentEvent(envelope.getMessage(), true));
+            }
+        }
+    }
+
+    /**
+     * Returns the id of this node.
+     *
+     * @return the node id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,244 @@
+package com.qualogo.chatserver.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Rotates the RANGE partitions of the {@code chat_message} table when {@code chat.partitioning.enabled} is set.
+ * <p>
+ * Each partition holds {@code chat.partitioning.periodDays} days of messages, aligned on UTC midnight, and is
+ * named after its first day. Partitions are kept created {@code chat.partitioning.aheadPeriods} periods in
+ * advance by splitting the catch-all {@code pmax} partition. The first split moves the existing messages into the
+ * partition of the current period; afterwards {@code pmax} stays empty, so splitting it moves no rows.
+ * With {@code chat.partitioning.retentionDays}, partitions whose messages are all older than the retention
+ * are dropped, which removes them at once instead of deleting them row by row. Their messages are removed from
+ * Redis first, so the Redis index never lists messages the database no longer holds.
+ * <p>
+ * The first split copies the whole table, so rotations run on their own thread rather than on the shared
+ * scheduler thread, which would stall the other scheduled tasks of the node until the copy is done.
+ * <p>
+ * Every node runs the check, but only the one holding the {@value #LOCK_NAME} database lock rotates; the others
+ * skip the run rather than race it with a concurrent REORGANIZE of the same partition.
+ */
+@Service
+public class ChatMessagePartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessagePartitionManager.class);
+
+    static final String CATCH_ALL = "pmax";
+
+    static final String LOCK_NAME = "chat_message_partitions";
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.partitioning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.partitioning.periodDays:1}")
+    private int periodDays;
+
+    @Value("${chat.partitioning.aheadPeriods:7}")
+    private int aheadPeriods;
+
+    @Value("${chat.partitioning.retentionDays:0}")
+    private int retentionDays;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Starts the rotation thread and registers its metrics.
+     * At most one rotation waits behind a running one; later checks are dropped until it starts.
+     */
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "partition-rotation");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "partitionRotation");
+    }
+
+    /**
+     * Stops the rotation thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hands a rotation to the rotation thread, so a long REORGANIZE does not hold up the scheduler.
+     */
+    @Scheduled(initialDelayString = "${chat.partitioning.initialDelayMs:10000}",
+            fixedDelayString = "${chat.partitioning.checkIntervalMs:3600000}")
+    public void scheduleRotation() {
+        if (enabled) {
+            executor.execute(this::rotate);
+        }
+    }
+
+    /**
+     * Creates the upcoming partitions and drops the expired ones.
+     */
+    public void rotate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Boolean rotated = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+                if (!lock(connection, "SELECT GET_LOCK(?, 0)")) {
+                    return false;
+                }
+                try {
+                    rotate(System.currentTimeMillis());
+                    return true;
+                } finally {
+                    lock(connection, "SELECT RELEASE_LOCK(?)");
+                }
+            });
+            if (!Boolean.TRUE.equals(rotated)) {
+                logger.debug("Another node is rotating chat_message partitions, skipping");
+            }
+        } catch (DataAccessException ex) {
+            // Retried on the next check; pmax keeps accepting messages meanwhile
+            logger.error("Cannot rotate chat_message partitions: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Creates the upcoming partitions and drops the expired ones as of the given time.
+     *
+     * @param now the current time, in epoch milliseconds
+     */
+    void rotate(long now) {
+        List<Partition> partitions = jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM INFORMATION_SCHEMA.PARTITIONS"
+                        + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chat_message' AND PARTITION_NAME IS NOT NULL"
+                        + " ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> new Partition(rs.getString(1), parseBound(rs.getString(2))));
+        if (partitions.isEmpty() || partitions.stream().noneMatch(partition -> CATCH_ALL.equals(partition.name()))) {
+            logger.warn("chat_message has no {} partition, skipping partition rotation", CATCH_ALL);
+            return;
+        }
+        createUpcoming(partitions, now);
+        dropExpired(partitions, now);
+    }
+
+    /**
+     * Splits the catch-all partition so that partitions exist up to {@code aheadPeriods} periods from now.
+     */
+    private void createUpcoming(List<Partition> partitions, long now) {
+        long period = periodDays * DAY_MILLIS;
+        long currentStart = Math.floorDiv(now, period) * period;
+        long target = currentStart + (aheadPeriods + 1L) * period;
+        long lastBound = partitions.stream().filter(partition -> partition.bound() != null)
+                .mapToLong(Partition::bound).max().orElse(currentStart);
+
+        List<String> definitions = new ArrayList<>();
+        for (long bound = lastBound + period; bound <= target; bound += period) {
+            definitions.add("PARTITION " + NAME_FORMAT.format(Instant.ofEpochMilli(bound - period))
+                    + " VALUES LESS THAN (" + bound + ")");
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        definitions.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute("ALTER TABLE chat_message REORGANIZE PARTITION " + CATCH_ALL
+                + " INTO (" + String.join(", ", definitions) + ")");
+        logger.info("Created {} chat_message partitions", definitions.size() - 1);
+    }
+
+    /**
+     * Drops the partitions holding only messages older than {@code retentionDays}, after removing their
+     * messages from Redis. Should the drop fail, the next rotation removes nothing more from Redis and retries it.
+     */
+    private void dropExpired(List<Partition> partitions, long now) {
+        if (retentionDays <= 0) {
+            return;
+        }
+        long cutoff = now - retentionDays * DAY_MILLIS;
+        List<String> expired = new ArrayList<>();
+        long expiredBound = 0;
+        for (Partition partition : partitions) {
+            if (partition.bound() != null && partition.bound() <= cutoff) {
+                expired.add(partition.name());
+                expiredBound = Math.max(expiredBound, partition.bound());
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        long trimmed = chatService.trimMessagesBefore(expiredBound);
+        logger.info("Removed {} expired messages from Redis", trimmed);
+        jdbcTemplate.execute("ALTER TABLE chat_message DROP PARTITION " + String.join(", ", expired));
+        logger.info("Dropped expired chat_message partitions {}", expired);
+    }
+
+    /**
+     * Runs a named lock function on a connection. The lock belongs to the connection, so it is held on its own
+     * connection while the rotation statements run on others.
+     *
+     * @param connection the connection holding the lock
+     * @param sql the GET_LOCK or RELEASE_LOCK query
+     * @return true if the function returned 1, i.e. the lock was obtained or released
+     */
+    private static boolean lock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, LOCK_NAME);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static Long parseBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description.trim())) {
+            return null;
+        }
+        return Long.parseLong(description.trim());
+    }
+
+    /**
+     * A partition and its exclusive upper bound, null for the catch-all partition.
+     */
+    record Partition(String name, Long bound) {
+    }
+}
@@ -1,22 +1,35 @@
 package com.qualogo.chatserver.service;
 
 import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
 import com.qualogo.chatserver.repository.ChatMessageRepository;
 import com.qualogo.chatserver.security.services.UserDetailsImpl;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class ChatService {
@@ -26,13 +39,33 @@ public class ChatService {
 
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
-    
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
-    private RateLimitingService rateLimitingService;
+    private MessageTailCache messageTailCache;
+
+    @Autowired
+    private MessageIdGenerator messageIdGenerator;
+
+    @Value("${chat.writeBehind.enabled:false}")
+    private boolean writeBehind;
+
+    @Value("${chat.read.pageSize:500}")
+    private int readPageSize;
+
+    @Value("${chat.read.maxLimit:1000}")
+    private int maxLimit;
+
+    /**
+     * The room used by clients that do not name a room.
+     */
+    public static final String DEFAULT_ROOM = "general";
 
     private static final String CHAT_ROOM_MESSAGES = "chatRoomMessages";
     private static final String CHAT_ROOM_MESSAGES_BY_TIME = "chatRoomMessagesByTime";
-    private static final String RATE_LIMIT_EXCEEDED = "Rate limit exceeded. Please try again later.";
+    private static final Pattern ROOM_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,50}");
 
     /**
      * Retrieves the current authenticated user's username.
@@ -53,45 +86,80 @@ public class ChatService {
     }
 
     /**
-     * Allows a user to join a chat room.
+     * Checks that a room id is safe to use in Redis keys and STOMP destinations.
+     *
+     * @param roomId the room id to check.
+     * @return the room id.
+     * @throws ResponseStatusException with status 400 if the room id is invalid.
+     */
+    public static String requireValidRoom(String roomId) {
+        if (roomId == null || !ROOM_ID_PATTERN.matcher(roomId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid room id: " + roomId);
+        }
+        return roomId;
+    }
+
+    /**
+     * Allows a user to join the default chat room.
      *
-     * @return a welcome message if the user is allowed to join, otherwise a rate limit exceeded message.
+     * @return a welcome message.
      */
     public String joinRoom() {
+        return joinRoom(DEFAULT_ROOM);
+    }
+
+    /**
+     * Allows a user to join a chat room.
+     *
+     * @param roomId the id of the room to join.
+     * @return a welcome message.
+     */
+    public String joinRoom(String roomId) {
+        requireValidRoom(roomId);
         String username = getCurrentUser();
-        if (!rateLimitingService.isAllowed(username)) {
-            return RATE_LIMIT_EXCEEDED;
-        }
         return String.format("Welcome %s, joined the chat room.", username);
     }
 
     /**
-     * Sends a message to the chat room.
+     * Sends a message to the default chat room.
      *
      * @param message the message to be sent.
      * @return a success message if the message is sent, otherwise an error message.
      */
     public String sendMessage(String message) {
+        return sendMessage(DEFAULT_ROOM, message);
+    }
+
+    /**
+     * Sends a message to a chat room.
+     * The message id is generated locally by {@link MessageIdGenerator}. With {@code chat.writeBehind.enabled},
+     * the message is acknowledged once stored in Redis; {@link MessagePersistenceBatcher} writes it to the
+     * database afterwards.
+     *
+     * @param roomId the id of the room to send the message to.
+     * @param message the message to be sent.
+     * @return a success message if the message is sent, otherwise an error message.
+     */
+    public String sendMessage(String roomId, String message) {
+        requireValidRoom(roomId);
+        if (message == null || message.isEmpty()) {
+            return "Error";
+        }
         try {
             String username = getCurrentUser();
-            if (!rateLimitingService.isAllowed(username)) {
-                return RATE_LIMIT_EXCEEDED;
+
+            long messageId = messageIdGenerator.nextId();
+            ChatMessage chatMessage = new ChatMessage(messageId, roomId, username, message,
+                    MessageIdGenerator.timestampOf(messageId));
+            if (!writeBehind) {
+                chatMessageRepository.insert(chatMessage);
             }
-            
-            ChatMessage chatMessage = new ChatMessage(username, message);
-            chatMessageRepository.save(chatMessage);
 
             // Store message in Redis
-            long messageId = chatMessage.getId();
-            long timestamp = chatMessage.getTimestamp();
-
-            redisTemplate.opsForHash().put("message:" + messageId, "id", messageId);
-            redisTemplate.opsForHash().put("message:" + messageId, "content", message);
-            redisTemplate.opsForHash().put("message:" + messageId, "user", username);
-            redisTemplate.opsForHash().put("message:" + messageId, "timestamp", timestamp);
+            storeMessage(chatMessage);
 
-            redisTemplate.opsForList().rightPush(CHAT_ROOM_MESSAGES, messageId);
-            redisTemplate.opsForZSet().add(CHAT_ROOM_MESSAGES_BY_TIME, messageId, timestamp);
+            // Push the message to connected clients
+            eventPublisher.publishEvent(new MessageSentEvent(chatMessage));
 
             return "Message sent!";
         } catch (Exception ex) {
@@ -100,68 +168,360 @@ public class ChatService {
     }
 
     /**
-     * Retrieves messages from the chat room since a given timestamp.
+     * Retrieves messages from the default chat room since a given timestamp.
      *
      * @param timestamp the timestamp from which to retrieve messages.
-     * @return a list of chat messages since the given timestamp.
+     * @return the first page of chat messages since the given timestamp.
      */
-    @Cacheable(value = "chatMessages", key = "#timestamp")
     public List<ChatMessage> getMessagesSince(long timestamp) {
-        String username = getCurrentUser();
-        if (!rateLimitingService.isAllowed(username)) {
-            return Collections.emptyList(); 
+        return getMessagesSince(DEFAULT_ROOM, timestamp);
+    }
+
+    /**
+     * Retrieves messages from a chat room since a given timestamp.
+     *
+     * @param roomId the id of the room to retrieve messages from.
+     * @param timestamp the timestamp from which to retrieve messages.
+     * @return the first page of chat messages since the given timestamp.
+     */
+    public List<ChatMessage> getMessagesSince(String roomId, long timestamp) {
+        return getMessages(roomId, timestamp, null, null).getMessages();
+    }
+
+    /**
+     * Retrieves one page of messages from a chat room.
+     * The page starts after the given cursor or, when no cursor is given, at the given timestamp.
+     *
+     * @param roomId the id of the room to retrieve messages from.
+     * @param timestamp the timestamp from which to retrieve messages, used when no cursor is given.
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit the maximum number of messages to return, or null for {@code chat.read.maxLimit}.
+     * @return the page of messages.
+     * @throws ResponseStatusException with status 400 if neither a timestamp nor a valid cursor is given.
+     */
+    public MessagePage getMessages(String roomId, Long timestamp, String cursor, Integer limit) {
+        requireValidRoom(roomId);
+        MessageCursor from;
+        if (cursor != null) {
+            from = MessageCursor.decode(cursor);
+        } else if (timestamp != null) {
+            from = MessageCursor.since(timestamp);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either timestamp or cursor is required");
         }
-        
-        Set<Object> messageIds = redisTemplate.opsForZSet().rangeByScore(CHAT_ROOM_MESSAGES_BY_TIME, timestamp, System.currentTimeMillis());
-        List<ChatMessage> messages = new ArrayList<>();
+        return findMessages(roomId, from, limit);
+    }
 
-        for (Object id : messageIds) {
-            Map<Object, Object> messageMap = redisTemplate.opsForHash().entries("message:" + id);
-            ChatMessage message = new ChatMessage();
-            message.setId((Long) messageMap.get("id"));
-            message.setUsername((String) messageMap.get("user"));
-            message.setMessage((String) messageMap.get("content"));
-            message.setTimestamp((Long) messageMap.get("timestamp"));
-            messages.add(message);
+    /**
+     * Looks up the first page of messages of a chat room since a given timestamp.
+     *
+     * @param roomId the id of the room to retrieve messages from.
+     * @param timestamp the timestamp from which to retrieve messages.
+     * @return the first page of chat messages since the given timestamp.
+     */
+    public List<ChatMessage> findMessagesSince(String roomId, long timestamp) {
+        return findMessages(roomId, MessageCursor.since(timestamp), null).getMessages();
+    }
+
+    /**
+     * Looks up one page of messages of a chat room.
+     * Messages are read from the room's cached tail when it covers the cursor, then from the room's
+     * Redis index, falling back to a keyset query on the database when Redis holds none.
+     *
+     * @param roomId the id of the room to retrieve messages from.
+     * @param cursor the position after which to retrieve messages.
+     * @param limit the maximum number of messages to return, or null for {@code chat.read.maxLimit}.
+     * @return the page of messages, oldest first.
+     */
+    public MessagePage findMessages(String roomId, MessageCursor cursor, Integer limit) {
+        int pageLimit = resolveLimit(limit);
+        MessagePage page = messageTailCache.find(roomId, cursor, pageLimit);
+        if (page != null) {
+            return page;
         }
 
+        long version = messageTailCache.version(roomId);
+        page = findMessagesInRedis(roomId, cursor, pageLimit);
+
         //worst case
-        if (messages.isEmpty()) {
-            // If cache is empty, retrieve messages from the database and cache them
-            messages = chatMessageRepository.findAllByTimestampGreaterThan(timestamp);
-            redisTemplate.opsForList().rightPushAll("chatMessages", messages);
-            redisTemplate.expire("chatMessages", 1, TimeUnit.DAYS);
+        if (page.getMessages().isEmpty() && page.getNextCursor() == null) {
+            List<ChatMessage> messages = chatMessageRepository.findPageAfter(roomId, cursor.getTimestamp(), cursor.getId(),
+                    PageRequest.of(0, pageLimit + 1));
+            String nextCursor = null;
+            if (messages.size() > pageLimit) {
+                messages = messages.subList(0, pageLimit);
+                ChatMessage last = messages.get(pageLimit - 1);
+                nextCursor = new MessageCursor(last.getTimestamp(), last.getId()).encode();
+            }
+            page = new MessagePage(messages, nextCursor);
+        }
+
+        if (page.getNextCursor() == null) {
+            messageTailCache.seed(roomId, cursor, page.getMessages(), version);
+        }
+        return page;
+    }
+
+    /**
+     * Reads one page of messages from the room's {@code chatRoomMessagesByTime} sorted set.
+     * Members sharing a score are ordered by their serialized form rather than numerically, so the
+     * whole group sharing the score of the last fetched member is read and sorted by id before the
+     * page is cut, keeping the cursor stable across pages.
+     *
+     * @param roomId the id of the room to retrieve messages from.
+     * @param cursor the position after which to retrieve messages.
+     * @param limit the maximum number of messages to return.
+     * @return the page of messages, oldest first.
+     */
+    private MessagePage findMessagesInRedis(String roomId, MessageCursor cursor, int limit) {
+        String key = roomMessagesByTimeKey(roomId);
+        Map<Long, Long> candidates = new HashMap<>();
+        long offset = 0;
+        boolean exhausted = false;
+        double lastScore = cursor.getTimestamp();
+
+        while (candidates.size() <= limit) {
+            Set<TypedTuple<Object>> window = redisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(key, cursor.getTimestamp(), Double.POSITIVE_INFINITY, offset, limit + 1);
+            if (window == null) {
+                window = Collections.emptySet();
+            }
+            for (TypedTuple<Object> tuple : window) {
+                addCandidate(candidates, cursor, tuple);
+                lastScore = tuple.getScore();
+            }
+            if (window.size() < limit + 1) {
+                exhausted = true;
+                break;
+            }
+            offset += window.size();
+        }
+
+        if (!exhausted) {
+            Set<TypedTuple<Object>> group = redisTemplate.opsForZSet().rangeByScoreWithScores(key, lastScore, lastScore);
+            if (group != null) {
+                for (TypedTuple<Object> tuple : group) {
+                    addCandidate(candidates, cursor, tuple);
+                }
+            }
+        }
+
+        List<Map.Entry<Long, Long>> ordered = new ArrayList<>(candidates.entrySet());
+        ordered.sort(Map.Entry.<Long, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        String nextCursor = null;
+        if (ordered.size() > limit) {
+            ordered = ordered.subList(0, limit);
+            Map.Entry<Long, Long> last = ordered.get(limit - 1);
+            nextCursor = new MessageCursor(last.getValue(), last.getKey()).encode();
+        }
+
+        List<Object> messageIds = new ArrayList<>(ordered.size());
+        for (Map.Entry<Long, Long> entry : ordered) {
+            messageIds.add(entry.getKey());
+        }
+        return new MessagePage(getMessagesByIds(messageIds), nextCursor);
+    }
+
+    /**
+     * Records a sorted set member as a page candidate if it comes after the cursor.
+     *
+     * @param candidates the candidates collected so far, timestamps keyed by message id.
+     * @param cursor the position after which to retrieve messages.
+     * @param tuple the sorted set member and its score.
+     */
+    private static void addCandidate(Map<Long, Long> candidates, MessageCursor cursor, TypedTuple<Object> tuple) {
+        if (tuple.getValue() == null || tuple.getScore() == null) {
+            return;
+        }
+        long messageId = ((Number) tuple.getValue()).longValue();
+        long timestamp = tuple.getScore().longValue();
+        if (cursor.isBefore(timestamp, messageId)) {
+            candidates.put(messageId, timestamp);
+        }
+    }
+
+    /**
+     * Clamps a requested page size to {@code chat.read.maxLimit}.
+     *
+     * @param limit the requested page size, or null for the maximum.
+     * @return the page size to use.
+     * @throws ResponseStatusException with status 400 if the limit is not positive.
+     */
+    private int resolveLimit(Integer limit) {
+        int max = maxLimit > 0 ? maxLimit : Integer.MAX_VALUE - 1;
+        if (limit == null) {
+            return max;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+        }
+        return Math.min(limit, max);
+    }
+
+    /**
+     * Writes a message hash and its room indexes to Redis.
+     * All writes are queued in a single MULTI/EXEC transaction which is sent as one pipelined
+     * exchange, so readers never observe a partially written {@code message:<id>} hash.
+     * With write-behind, the message is queued on the {@code chat:persist} stream in the same transaction.
+     *
+     * @param chatMessage the message to store.
+     */
+    private void storeMessage(ChatMessage chatMessage) {
+        long messageId = chatMessage.getId();
+        Map<String, Object> messageMap = new LinkedHashMap<>();
+        messageMap.put("id", messageId);
+        messageMap.put("room", chatMessage.getRoomId());
+        messageMap.put("content", chatMessage.getMessage());
+        messageMap.put("user", chatMessage.getUsername());
+        messageMap.put("timestamp", chatMessage.getTimestamp());
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                ops.multi();
+                ops.opsForHash().putAll("message:" + messageId, messageMap);
+                ops.opsForList().rightPush(roomMessagesKey(chatMessage.getRoomId()), messageId);
+                ops.opsForZSet().add(roomMessagesByTimeKey(chatMessage.getRoomId()), messageId, chatMessage.getTimestamp());
+                if (writeBehind) {
+                    ops.opsForStream().add(MapRecord.create(MessagePersistenceBatcher.STREAM_KEY,
+                            MessagePersistenceBatcher.insertEntry(messageId)));
+                }
+                ops.exec();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Loads the message hashes for the given ids from Redis.
+     * The ids are fetched in pages of {@code chat.read.pageSize}, each page being a single
+     * pipelined exchange, so the number of round trips no longer grows with the backlog.
+     *
+     * @param messageIds the ids of the messages to load, in the order they should be returned.
+     * @return the messages that still exist in Redis, in the order of the given ids.
+     */
+    private List<ChatMessage> getMessagesByIds(List<Object> messageIds) {
+        List<ChatMessage> messages = new ArrayList<>(messageIds.size());
+        int pageSize = readPageSize > 0 ? readPageSize : messageIds.size();
+
+        for (int from = 0; from < messageIds.size(); from += pageSize) {
+            List<Object> page = messageIds.subList(from, Math.min(from + pageSize, messageIds.size()));
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    for (Object id : page) {
+                        operations.opsForHash().entries((K) ("message:" + id));
+                    }
+                    return null;
+                }
+            });
+
+            for (Object result : results) {
+                if (result instanceof Map<?, ?> messageMap && !messageMap.isEmpty()) {
+                    messages.add(toChatMessage(messageMap));
+                }
+            }
         }
         return messages;
     }
 
     /**
-     * Deletes a message from the chat room.
+     * Converts a {@code message:<id>} hash read from Redis into a chat message.
+     *
+     * @param messageMap the hash entries of the message.
+     * @return the chat message.
+     */
+    private static ChatMessage toChatMessage(Map<?, ?> messageMap) {
+        ChatMessage message = new ChatMessage();
+        message.setId(((Number) messageMap.get("id")).longValue());
+        message.setRoomId((String) messageMap.get("room"));
+        message.setUsername((String) messageMap.get("user"));
+        message.setMessage((String) messageMap.get("content"));
+        message.setTimestamp(((Number) messageMap.get("timestamp")).longValue());
+        return message;
+    }
+
+    /**
+     * Returns the Redis list key holding the message ids of a room in insertion order.
+     *
+     * @param roomId the id of the room.
+     * @return the list key of the room.
+     */
+    private static String roomMessagesKey(String roomId) {
+        return CHAT_ROOM_MESSAGES + ":" + roomId;
+    }
+
+    /**
+     * Returns the Redis sorted set key holding the message ids of a room scored by timestamp.
+     *
+     * @param roomId the id of the room.
+     * @return the sorted set key of the room.
+     */
+    private static String roomMessagesByTimeKey(String roomId) {
+        return CHAT_ROOM_MESSAGES_BY_TIME + ":" + roomId;
+    }
+
+    /**
+     * Returns the cursor positioned on the given message, used to resume a message stream.
+     * A generated id embeds the timestamp of its message, so the cursor is derived from the id alone.
+     * Otherwise the position of the message is looked up in the room's {@code chatRoomMessagesByTime} sorted set,
+     * falling back to the database when it is no longer cached.
+     *
+     * @param roomId the id of the room of the message.
+     * @param messageId the id of the message.
+     * @return the cursor of the message, or null if the message does not exist and its id is not generated.
+     */
+    public MessageCursor findCursorOfMessage(String roomId, long messageId) {
+        if (MessageIdGenerator.isGenerated(messageId)) {
+            return new MessageCursor(MessageIdGenerator.timestampOf(messageId), messageId);
+        }
+        Double score = redisTemplate.opsForZSet().score(roomMessagesByTimeKey(roomId), messageId);
+        if (score != null) {
+            return new MessageCursor(score.longValue(), messageId);
+        }
+        return findStoredMessage(messageId)
+                .map(message -> new MessageCursor(message.getTimestamp(), messageId))
+                .orElse(null);
+    }
+
+    /**
+     * Deletes a message from its chat room.
      *
      * @param messageId the ID of the message to be deleted.
      * @return a success message if the message is deleted, otherwise an error message.
      */
     public String deleteMessage(long messageId) {
         String username = getCurrentUser();
-        if (!rateLimitingService.isAllowed(username)) {
-            return RATE_LIMIT_EXCEEDED;
-        }
-    
+
         // Fetch the message from the repository
-        Optional<ChatMessage> optionalMessage = chatMessageRepository.findById(messageId);
+        Optional<ChatMessage> optionalMessage = findStoredMessage(messageId);
+        if (optionalMessage.isEmpty() && writeBehind) {
+            // Not written to the database yet
+            optionalMessage = findMessageInRedis(messageId);
+        }
         
         if (optionalMessage.isPresent()) {
             ChatMessage chatMessage = optionalMessage.get();
             
             // Check if the message belongs to the current user
             if (chatMessage.getUsername().equals(username)) {
-                // Remove message from Redis
-                redisTemplate.opsForHash().delete("message:" + messageId);
-                redisTemplate.opsForList().remove(CHAT_ROOM_MESSAGES, 1, messageId);
-                redisTemplate.opsForZSet().remove(CHAT_ROOM_MESSAGES_BY_TIME, messageId);
-    
-                // Delete the message from the repository
-                chatMessageRepository.deleteById(messageId);
+                if (writeBehind) {
+                    removeMessage(chatMessage);
+                } else {
+                    // Remove message from Redis
+                    redisTemplate.delete("message:" + messageId);
+                    redisTemplate.opsForList().remove(roomMessagesKey(chatMessage.getRoomId()), 1, messageId);
+                    redisTemplate.opsForZSet().remove(roomMessagesByTimeKey(chatMessage.getRoomId()), messageId);
+
+                    // Delete the message from the repository
+                    chatMessageRepository.deleteByIdAndTimestamp(messageId, chatMessage.getTimestamp());
+                }
+
+                eventPublisher.publishEvent(new MessageDeletedEvent(chatMessage));
                 return "Successfully deleted the message";
             } else {
                 return "You can only delete your own messages";
@@ -170,4 +530,103 @@ public class ChatService {
             return "Message not found";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Removes the messages older than the given time from Redis, once the database has expired them.
+     * The rooms are found by scanning their sorted set keys, and the expired ids of a room are removed
+     * {@code chat.read.pageSize} at a time, each page being a single pipelined exchange. The tail cache of
+     * this node is dropped; the other nodes drop theirs within {@code chat.cache.ttlSeconds}.
+     *
+     * @param timestamp the time before which messages are removed, in epoch milliseconds.
+     * @return the number of messages removed.
+     */
+    public long trimMessagesBefore(long timestamp) {
+        int pageSize = readPageSize > 0 ? readPageSize : 500;
+        long removed = 0;
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions()
+                .match(CHAT_ROOM_MESSAGES_BY_TIME + ":*").count(pageSize).build())) {
+            while (keys.hasNext()) {
+                String byTimeKey = keys.next();
+                String listKey = roomMessagesKey(byTimeKey.substring(CHAT_ROOM_MESSAGES_BY_TIME.length() + 1));
+                while (true) {
+                    Set<Object> page = redisTemplate.opsForZSet().rangeByScore(byTimeKey, Double.NEGATIVE_INFINITY,
+                            timestamp - 1, 0, pageSize);
+                    if (page == null || page.isEmpty()) {
+                        break;
+                    }
+                    redisTemplate.executePipelined(new SessionCallback<Object>() {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public <K, V> Object execute(RedisOperations<K, V> operations) {
+                            RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                            for (Object id : page) {
+                                ops.delete("message:" + id);
+                                // Expired ids are the oldest, so the removal scan stops near the head of the list
+                                ops.opsForList().remove(listKey, 1, id);
+                            }
+                            ops.opsForZSet().remove(byTimeKey, page.toArray());
+                            return null;
+                        }
+                    });
+                    removed += page.size();
+                }
+            }
+        }
+        messageTailCache.invalidateAll();
+        return removed;
+    }
+
+    /**
+     * Reads a message from the database.
+     * The timestamp of a generated id is known, so the lookup reads only the partition holding the message.
+     *
+     * @param messageId the id of the message.
+     * @return the message, or empty if the database does not hold it.
+     */
+    private Optional<ChatMessage> findStoredMessage(long messageId) {
+        if (MessageIdGenerator.isGenerated(messageId)) {
+            return chatMessageRepository.findByIdAndTimestamp(messageId, MessageIdGenerator.timestampOf(messageId));
+        }
+        return chatMessageRepository.findById(messageId);
+    }
+
+    /**
+     * Reads a message from its {@code message:<id>} hash in Redis.
+     *
+     * @param messageId the id of the message.
+     * @return the message, or empty if Redis does not hold it.
+     */
+    private Optional<ChatMessage> findMessageInRedis(long messageId) {
+        Map<Object, Object> messageMap = redisTemplate.opsForHash().entries("message:" + messageId);
+        if (messageMap == null || messageMap.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(toChatMessage(messageMap));
+    }
+
+    /**
+     * Removes a message from Redis and queues its deletion from the database on the {@code chat:persist} stream,
+     * in a single MULTI/EXEC transaction. Queuing the deletion behind any pending write of the message keeps
+     * the batcher from writing the message back.
+     *
+     * @param chatMessage the message to remove.
+     */
+    private void removeMessage(ChatMessage chatMessage) {
+        long messageId = chatMessage.getId();
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                ops.multi();
+                ops.delete("message:" + messageId);
+                ops.opsForList().remove(roomMessagesKey(chatMessage.getRoomId()), 1, messageId);
+                ops.opsForZSet().remove(roomMessagesByTimeKey(chatMessage.getRoomId()), messageId);
+                ops.opsForStream().add(MapRecord.create(MessagePersistenceBatcher.STREAM_KEY,
+                        MessagePersistenceBatcher.deleteEntry(messageId, chatMessage.getTimestamp())));
+                ops.exec();
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,337 @@
+package com.qualogo.chatserver.service;
+
+import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Service for streaming chat room messages to clients as Server-Sent Events.
+ * Each client holds one long-lived stream per room instead of polling for new messages.
+ * <p>
+ * Events are never written on the thread publishing them, which is a sender's request thread or the
+ * cluster relay thread. Each stream has its own backlog of at most {@code chat.sse.maxBacklog} events,
+ * drained by a pool of {@code chat.sse.senderThreads} threads, so a slow or half-open client only delays
+ * itself. A stream whose backlog is full, or whose write fails, is closed and dropped; the client
+ * reconnects with Last-Event-ID and the missed messages are replayed, one bounded page per connection.
+ */
+@Service
+public class ChatStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatStreamService.class);
+
+    private final Map<String, List<Subscriber>> subscribersByRoom = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.sse.timeoutMs:1800000}")
+    private long timeoutMs;
+
+    @Value("${chat.sse.senderThreads:0}")
+    private int senderThreads;
+
+    @Value("${chat.sse.maxBacklog:100}")
+    private int maxBacklog;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Starts the sender pool and registers its metrics. A pool size of 0 uses one thread per processor.
+     * The pool queue needs no bound: a stream has at most one drain task queued at a time.
+     */
+    @PostConstruct
+    public void init() {
+        int threads = senderThreads > 0 ? senderThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "sseSender");
+    }
+
+    /**
+     * Stops the sender pool.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Opens a message stream of a chat room for the current user.
+     * When the id of the last received message is given, the messages written after it are replayed first.
+     *
+     * @param roomId the id of the room to stream messages of.
+     * @param lastEventId the id of the last message the client has received, or null for a new stream.
+     * @return the emitter streaming the chat room messages.
+     */
+    public SseEmitter subscribe(String roomId, Long lastEventId) {
+        ChatService.requireValidRoom(roomId);
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = register(roomId, emitter);
+
+        if (lastEventId != null) {
+            replay(subscriber, chatService.findCursorOfMessage(roomId, lastEventId));
+        }
+        return emitter;
+    }
+
+    /**
+     * Registers an emitter to receive the new messages of a room.
+     *
+     * @param roomId the id of the room.
+     * @param emitter the emitter to register.
+     * @return the registered subscriber.
+     */
+    Subscriber register(String roomId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(roomId, emitter, maxBacklog);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+
+        // Register before replaying so no message written in between is lost; clients dedupe by event id
+        subscribersByRoom.computeIfAbsent(roomId, key -> new CopyOnWriteArrayList<>()).add(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Replays the messages written after the given cursor, at most {@code chat.sse.maxBacklog} of them.
+     * The emitter holds everything sent before the request returns in memory, so a client that is further
+     * behind gets one page and then its stream is closed; it reconnects with the Last-Event-ID of that page
+     * and the replay continues from there.
+     *
+     * @param subscriber the subscriber to replay the messages to.
+     * @param cursor the position after which to replay messages, or null if it is unknown.
+     */
+    private void replay(Subscriber subscriber, MessageCursor cursor) {
+        if (cursor == null) {
+            return;
+        }
+        MessagePage page = chatService.findMessages(subscriber.roomId, cursor, Math.max(1, maxBacklog));
+        for (ChatMessage message : page.getMessages()) {
+            if (!send(subscriber, messageEvent(message))) {
+                return;
+            }
+        }
+        if (page.getNextCursor() != null) {
+            close(subscriber);
+        }
+    }
+
+    /**
+     * Queues a sent message on every open stream of its room. Returns without writing to any client.
+     *
+     * @param event the event carrying the sent message
+     */
+    @EventListener
+    public void onMessageSent(MessageSentEvent event) {
+        List<Subscriber> subscribers = subscribersByRoom.get(event.getMessage().getRoomId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, messageEvent(event.getMessage()));
+        }
+    }
+
+    /**
+     * Queues a comment on all open streams so that proxies do not close idle streams.
+     */
+    @Scheduled(fixedDelayString = "${chat.sse.heartbeatMs:15000}")
+    public void sendHeartbeat() {
+        subscribersByRoom.values().forEach(subscribers -> {
+            for (Subscriber subscriber : subscribers) {
+                enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    /**
+     * Returns the number of open message streams.
+     *
+     * @return the number of open emitters
+     */
+    public int getSubscriberCount() {
+        return subscribersByRoom.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Builds the SSE event of a message, whose id is the message id so clients can resume with Last-Event-ID.
+     *
+     * @param message the message
+     * @return the event
+     */
+    private static SseEmitter.SseEventBuilder messageEvent(ChatMessage message) {
+        return SseEmitter.event()
+                .id(String.valueOf(message.getId()))
+                .name("message")
+                .data(message);
+    }
+
+    /**
+     * Adds an event to the backlog of a stream and makes sure a sender drains it.
+     * A stream whose backlog is full is too slow to keep up and is closed.
+     *
+     * @param subscriber the stream to send to
+     * @param event the event to send
+     */
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.backlog.offer(event)) {
+            logger.debug("Dropping message stream of room {} whose backlog is full", subscriber.roomId);
+            close(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    /**
+     * Drops a stream that cannot keep up and completes its response on a sender thread,
+     * since completing waits for a write in progress to the same client.
+     *
+     * @param subscriber the stream to close
+     */
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriber.backlog.clear();
+        try {
+            executor.execute(() -> {
+                try {
+                    subscriber.emitter.complete();
+                } catch (IllegalStateException ex) {
+                    logger.debug("Message stream already closed: {}", ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Shutting down, the container closes the response
+        }
+    }
+
+    /**
+     * Hands the backlog of a stream to a sender thread unless one is already draining it.
+     *
+     * @param subscriber the stream to drain
+     */
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException ex) {
+            // Shutting down
+            subscriber.draining.set(false);
+        }
+    }
+
+    /**
+     * Sends the backlog of a stream, on a sender thread.
+     *
+     * @param subscriber the stream to drain
+     */
+    private void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed.get() && (event = subscriber.backlog.poll()) != null) {
+                if (!send(subscriber, event)) {
+                    subscriber.backlog.clear();
+                    break;
+                }
+            }
+            subscriber.draining.set(false);
+            // An event queued after the last poll but before the flag was cleared still has to be sent
+        } while (!subscriber.closed.get() && !subscriber.backlog.isEmpty()
+                && subscriber.draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Writes an event to a stream, dropping the stream if it has been closed.
+     *
+     * @param subscriber the stream to send to
+     * @param event the event to send
+     * @return true if the event was sent, false if the emitter has been closed
+     */
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            logger.debug("Dropping closed message stream: {}", ex.getMessage());
+            subscriber.closed.set(true);
+            remove(subscriber);
+            return false;
+        }
+    }
+
+    /**
+     * Unregisters a stream, dropping the room entry once its last stream is gone.
+     *
+     * @param subscriber the stream to remove
+     */
+    private void remove(Subscriber subscriber) {
+        subscribersByRoom.computeIfPresent(subscriber.roomId, (key, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * An open stream with the events waiting to be written to it.
+     */
+    static final class Subscriber {
+
+        private final String roomId;
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<SseEmitter.SseEventBuilder> backlog;
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(String roomId, SseEmitter emitter, int maxBacklog) {
+            this.roomId = roomId;
+            this.emitter = emitter;
+            this.backlog = new ArrayBlockingQueue<>(Math.max(1, maxBacklog));
+        }
+    }
+}
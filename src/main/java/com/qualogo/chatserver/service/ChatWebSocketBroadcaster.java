@@ -0,0 +1,32 @@
+package com.qualogo.chatserver.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Pushes sent messages to the STOMP subscribers of their chat room.
+ */
+@Service
+public class ChatWebSocketBroadcaster {
+
+    /**
+     * The prefix of the STOMP destinations clients subscribe to in order to receive chat room messages.
+     * The destination of a room is {@code /topic/chatRoom/<roomId>}.
+     */
+    public static final String CHAT_ROOM_TOPIC = "/topic/chatRoom";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * Broadcasts a sent message to all subscribers of its chat room topic.
+     *
+     * @param event the event carrying the sent message
+     */
+    @EventListener
+    public void onMessageSent(MessageSentEvent event) {
+        messagingTemplate.convertAndSend(CHAT_ROOM_TOPIC + "/" + event.getMessage().getRoomId(), event.getMessage());
+    }
+}
@@ -0,0 +1,42 @@
+package com.qualogo.chatserver.service;
+
+/**
+ * File formats the history of a chat room can be exported in.
+ */
+public enum ExportFormat {
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * Comma-separated values with a header row, quoted as in RFC 4180.
+     */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the media type of the format.
+     *
+     * @return the media type
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the file extension of the format.
+     *
+     * @return the file extension, without a dot
+     */
+    public String extension() {
+        return extension;
+    }
+}
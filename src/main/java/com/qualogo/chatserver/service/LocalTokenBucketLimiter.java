@@ -0,0 +1,256 @@
+package com.qualogo.chatserver.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rate limiter answering from per-user token buckets held in memory, without a Redis round trip.
+ * Buckets live in a {@link ConcurrentHashMap} and are updated with compare-and-set, so concurrent
+ * requests of different users never contend and requests of the same user never block.
+ * <p>
+ * Every {@code rate.limit.syncIntervalMs} the tokens consumed on this node are added to a per-window
+ * counter in Redis in one pipelined batch. The totals read back reveal what the other nodes consumed
+ * since the last sync, and that amount is drained from the local bucket, keeping the limit approximately
+ * global: a user can exceed it by at most what the other nodes accept during one sync interval.
+ * <p>
+ * Buckets that are full and idle are dropped at sync time. The last total read for a key is kept until its
+ * window ends, so a bucket recreated within the same window does not mistake this node's earlier consumption
+ * for the other nodes'.
+ */
+@Service
+public class LocalTokenBucketLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalTokenBucketLimiter.class);
+
+    private static final String GLOBAL_KEY_PREFIX = "rateLimit:bucket:";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Map<String, WindowTotal> windowTotals = new ConcurrentHashMap<>();
+
+    /**
+     * Takes tokens from the bucket of a key.
+     *
+     * @param key the key of the bucket, usually the user id
+     * @param capacity the size of the bucket, the number of tokens that can be taken at once
+     * @param limit the number of tokens refilled per window
+     * @param windowMillis the length of the window, in milliseconds
+     * @param cost the number of tokens to take
+     * @return the decision, allowed if the tokens were available
+     */
+    public RateLimitDecision tryAcquire(String key, int capacity, int limit, long windowMillis, int cost) {
+        while (true) {
+            TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, limit, windowMillis));
+            if (bucket.capacity != capacity || bucket.limit != limit || bucket.windowMillis != windowMillis) {
+                // The policy has been reloaded
+                TokenBucket replacement = new TokenBucket(capacity, limit, windowMillis);
+                bucket = buckets.replace(key, bucket, replacement) ? replacement : buckets.getOrDefault(key, replacement);
+            }
+            RateLimitDecision decision = bucket.tryConsume(cost, System.nanoTime());
+            if (decision != null) {
+                return decision;
+            }
+            // The bucket is being dropped by sync, take from the one replacing it
+        }
+    }
+
+    /**
+     * Adds the tokens consumed on this node to the cluster-wide counters and drains the local buckets
+     * by what the other nodes consumed. Buckets that are full and idle are dropped.
+     */
+    @Scheduled(fixedDelayString = "${rate.limit.syncIntervalMs:250}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+        List<TokenBucket> pending = new ArrayList<>();
+        List<Long> consumed = new ArrayList<>();
+        List<String> bucketKeys = new ArrayList<>();
+        for (String key : buckets.keySet()) {
+            // Checked and removed under the map lock of the key, so no consumption can slip in between
+            TokenBucket bucket = buckets.computeIfPresent(key, (k, b) -> b.tryRetire(System.nanoTime()) ? null : b);
+            if (bucket == null) {
+                continue;
+            }
+            // Buckets without local consumption still read the total to learn what other nodes consumed
+            bucketKeys.add(key);
+            keys.add(GLOBAL_KEY_PREFIX + key + ":" + bucket.windowIndex(now));
+            pending.add(bucket);
+            consumed.add(bucket.pending.sumThenReset());
+        }
+        windowTotals.values().removeIf(total -> total.windowEnd() <= now);
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        List<Object> totals;
+        try {
+            totals = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (int i = 0; i < keys.size(); i++) {
+                        ops.opsForValue().increment(keys.get(i), consumed.get(i));
+                        ops.expire(keys.get(i), pending.get(i).windowMillis * 2, TimeUnit.MILLISECONDS);
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception ex) {
+            // Local limits keep applying; the consumption is reported again on the next sync
+            for (int i = 0; i < pending.size(); i++) {
+                pending.get(i).pending.add(consumed.get(i));
+            }
+            logger.warn("Cannot sync rate limit buckets to Redis: {}", ex.getMessage());
+            return;
+        }
+
+        for (int i = 0; i < pending.size(); i++) {
+            if (totals.get(i * 2) instanceof Number total) {
+                TokenBucket bucket = pending.get(i);
+                WindowTotal last = windowTotals.get(bucketKeys.get(i));
+                long previousTotal = last != null && last.windowKey().equals(keys.get(i)) ? last.total() : 0;
+                long windowEnd = (bucket.windowIndex(now) + 1) * bucket.windowMillis;
+                windowTotals.put(bucketKeys.get(i), new WindowTotal(keys.get(i), total.longValue(), windowEnd));
+                bucket.drain(total.longValue() - previousTotal - consumed.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of buckets held in memory.
+     *
+     * @return the number of buckets
+     */
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Token bucket of one key. The token count and refill time are swapped together with compare-and-set.
+     * A bucket is retired by sync only while no consumption is in flight, and consumers never take from a
+     * retired bucket, so every token taken is reported.
+     */
+    private static final class TokenBucket {
+
+        private final int capacity;
+
+        private final int limit;
+
+        private final long windowMillis;
+
+        private final double tokensPerNano;
+
+        private final AtomicReference<State> state;
+
+        private final LongAdder pending = new LongAdder();
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private volatile boolean retired;
+
+        TokenBucket(int capacity, int limit, long windowMillis) {
+            this.capacity = capacity;
+            this.limit = limit;
+            this.windowMillis = windowMillis;
+            this.tokensPerNano = (double) limit / TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            this.state = new AtomicReference<>(new State(capacity, System.nanoTime()));
+        }
+
+        /**
+         * Takes tokens, or returns null if the bucket has been retired.
+         */
+        RateLimitDecision tryConsume(int cost, long now) {
+            inFlight.incrementAndGet();
+            try {
+                if (retired) {
+                    return null;
+                }
+                while (true) {
+                    State current = state.get();
+                    double tokens = refill(current, now);
+                    if (tokens < cost) {
+                        long waitNanos = (long) Math.ceil((cost - tokens) / tokensPerNano);
+                        return new RateLimitDecision(false, (long) tokens, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+                    }
+                    if (state.compareAndSet(current, new State(tokens - cost, now))) {
+                        pending.add(cost);
+                        return new RateLimitDecision(true, (long) (tokens - cost), 0);
+                    }
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        /**
+         * Retires the bucket if it is full and idle, called by sync under the map lock of the key.
+         * The retired flag is raised before the in-flight count is read, and consumers do the opposite,
+         * so either the consumer sees the flag and backs off or sync sees the consumer and keeps the bucket.
+         */
+        boolean tryRetire(long now) {
+            retired = true;
+            if (inFlight.get() == 0 && pending.sum() == 0 && isFull(now)) {
+                return true;
+            }
+            retired = false;
+            return false;
+        }
+
+        boolean isFull(long now) {
+            return refill(state.get(), now) >= capacity;
+        }
+
+        long windowIndex(long nowMillis) {
+            return nowMillis / windowMillis;
+        }
+
+        /**
+         * Drains the tokens consumed by the other nodes, only called by the sync thread.
+         */
+        void drain(long others) {
+            if (others <= 0) {
+                return;
+            }
+            while (true) {
+                State current = state.get();
+                long now = System.nanoTime();
+                double tokens = Math.max(-capacity, refill(current, now) - others);
+                if (state.compareAndSet(current, new State(tokens, now))) {
+                    return;
+                }
+            }
+        }
+
+        private double refill(State current, long now) {
+            return Math.min(capacity, current.tokens() + (now - current.refilledAt()) * tokensPerNano);
+        }
+    }
+
+    private record State(double tokens, long refilledAt) {
+    }
+
+    /**
+     * The cluster-wide total last read for a key, kept until the end of its window.
+     */
+    private record WindowTotal(String windowKey, long total, long windowEnd) {
+    }
+}
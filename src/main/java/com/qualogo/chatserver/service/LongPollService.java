@@ -0,0 +1,107 @@
+package com.qualogo.chatserver.service;
+
+import com.qualogo.chatserver.models.ChatMessage;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Service for long-polling the chat room.
+ * When no message newer than the requested timestamp exists, the request is parked without holding
+ * a servlet thread and completed as soon as a message is sent or the poll times out.
+ * Parked polls are kept per room, so a sent message only visits the polls of its own room.
+ */
+@Service
+public class LongPollService {
+
+    private final Map<String, Queue<PendingPoll>> pollsByRoom = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ChatService chatService;
+
+    @Value("${chat.longpoll.timeoutMs:25000}")
+    private long timeoutMs;
+
+    /**
+     * Waits for messages of a chat room since a given timestamp.
+     *
+     * @param roomId the id of the room to wait for messages of.
+     * @param timestamp the timestamp from which to retrieve messages.
+     * @return a deferred list of messages, completed immediately if messages exist, otherwise on the next
+     *         sent message or with an empty list when the poll times out.
+     */
+    public DeferredResult<List<ChatMessage>> waitForMessagesSince(String roomId, long timestamp) {
+        ChatService.requireValidRoom(roomId);
+
+        DeferredResult<List<ChatMessage>> result = new DeferredResult<>(timeoutMs, Collections.emptyList());
+        PendingPoll poll = new PendingPoll(roomId, timestamp, result);
+        result.onCompletion(() -> remove(poll));
+
+        // Park before querying so a message sent in between completes the poll instead of being missed
+        pollsByRoom.compute(roomId, (key, polls) -> {
+            Queue<PendingPoll> roomPolls = polls != null ? polls : new ConcurrentLinkedQueue<>();
+            roomPolls.add(poll);
+            return roomPolls;
+        });
+
+        List<ChatMessage> messages = chatService.findMessagesSince(roomId, timestamp);
+        if (!messages.isEmpty() && result.setResult(messages)) {
+            remove(poll);
+        }
+        return result;
+    }
+
+    /**
+     * Completes the parked polls of the message's room waiting for a message at least as new as the sent message.
+     *
+     * @param event the event carrying the sent message
+     */
+    @EventListener
+    public void onMessageSent(MessageSentEvent event) {
+        ChatMessage message = event.getMessage();
+        Queue<PendingPoll> polls = pollsByRoom.get(message.getRoomId());
+        if (polls == null) {
+            return;
+        }
+        for (PendingPoll poll : polls) {
+            if (message.getTimestamp() >= poll.timestamp && poll.result.setResult(List.of(message))) {
+                remove(poll);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of parked polls.
+     *
+     * @return the number of polls waiting for a message
+     */
+    public int getPendingCount() {
+        return pollsByRoom.values().stream().mapToInt(Queue::size).sum();
+    }
+
+    /**
+     * Unparks a poll, dropping the room entry once its last poll is gone.
+     *
+     * @param poll the poll to remove
+     */
+    private void remove(PendingPoll poll) {
+        pollsByRoom.computeIfPresent(poll.roomId, (key, polls) -> {
+            polls.remove(poll);
+            return polls.isEmpty() ? null : polls;
+        });
+    }
+
+    /**
+     * A parked poll and the room and timestamp it is waiting for.
+     */
+    private record PendingPoll(String roomId, long timestamp, DeferredResult<List<ChatMessage>> result) {
+    }
+}
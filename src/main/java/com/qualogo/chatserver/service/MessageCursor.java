@@ -0,0 +1,95 @@
+package com.qualogo.chatserver.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Position in the message history of a room, used for keyset pagination.
+ * Messages are ordered by timestamp and then by id; a cursor selects the messages strictly after its position.
+ * Clients only see the opaque encoded form returned by {@link #encode()}.
+ */
+public final class MessageCursor {
+
+    private final long timestamp;
+
+    private final long id;
+
+    /**
+     * Constructs a new MessageCursor positioned on the given message.
+     *
+     * @param timestamp the timestamp of the message
+     * @param id the id of the message
+     */
+    public MessageCursor(long timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    /**
+     * Returns a cursor selecting every message sent at or after the given timestamp.
+     *
+     * @param timestamp the timestamp from which to retrieve messages
+     * @return the cursor
+     */
+    public static MessageCursor since(long timestamp) {
+        return new MessageCursor(timestamp, -1);
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor
+     * @return the decoded cursor
+     * @throws ResponseStatusException with status 400 if the cursor is malformed
+     */
+    public static MessageCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new MessageCursor(Long.parseLong(decoded.substring(0, separator)), Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Encodes the cursor into an opaque, URL-safe string.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((timestamp + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks whether the message at the given position comes after the cursor.
+     *
+     * @param messageTimestamp the timestamp of the message
+     * @param messageId the id of the message
+     * @return true if the message is selected by the cursor, false otherwise
+     */
+    public boolean isBefore(long messageTimestamp, long messageId) {
+        return messageTimestamp > timestamp || (messageTimestamp == timestamp && messageId > id);
+    }
+
+    /**
+     * Returns the timestamp of the cursor position.
+     *
+     * @return the timestamp
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the message id of the cursor position.
+     *
+     * @return the id
+     */
+    public long getId() {
+        return id;
+    }
+}
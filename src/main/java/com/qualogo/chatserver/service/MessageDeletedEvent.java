@@ -0,0 +1,52 @@
+package com.qualogo.chatserver.service;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+/**
+ * Application event published after a chat message has been deleted.
+ * Messages deleted on other nodes of the cluster are republished locally as remote events.
+ */
+public class MessageDeletedEvent {
+
+    private final ChatMessage message;
+
+    private final boolean remote;
+
+    /**
+     * Constructs a new MessageDeletedEvent for a message deleted on this node.
+     *
+     * @param message the message that has been deleted
+     */
+    public MessageDeletedEvent(ChatMessage message) {
+        this(message, false);
+    }
+
+    /**
+     * Constructs a new MessageDeletedEvent for the given message.
+     *
+     * @param message the message that has been deleted
+     * @param remote whether the message was deleted on another node
+     */
+    public MessageDeletedEvent(ChatMessage message, boolean remote) {
+        this.message = message;
+        this.remote = remote;
+    }
+
+    /**
+     * Returns the message that has been deleted.
+     *
+     * @return the message
+     */
+    public ChatMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Indicates whether the message was deleted on another node of the cluster.
+     *
+     * @return true if the deletion was relayed from another node, false otherwise
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+}
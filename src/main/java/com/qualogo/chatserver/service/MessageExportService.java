@@ -0,0 +1,122 @@
+package com.qualogo.chatserver.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.repository.ChatMessageRepository;
+
+/**
+ * Writes the full history of a chat room to an output stream as NDJSON or CSV.
+ * <p>
+ * Messages are read through {@link ChatMessageRepository#streamAfter}, a forward-only cursor fetching
+ * {@value ChatMessageRepository#FETCH_SIZE} rows per round trip, into unmanaged objects that the persistence
+ * context does not hold on to. Each message is written as soon as it is read, so memory use stays the same
+ * whatever the size of the history. With write-behind enabled, messages still queued in Redis are not exported yet.
+ */
+@Service
+public class MessageExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageExportService.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final String CSV_HEADER = "id,roomId,username,message,timestamp";
+
+    /**
+     * Number of messages written between two flushes, so the client receives the export progressively.
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    /**
+     * Writes every message of a room, oldest first, in the given format.
+     * The read-only transaction keeps the database cursor open until the last message is written.
+     *
+     * @param roomId the identifier of the room.
+     * @param format the format to write.
+     * @param out the stream to write to, left open.
+     * @return the number of messages written.
+     * @throws IOException if the stream cannot be written, typically because the client went away.
+     */
+    @Transactional(readOnly = true)
+    public long export(String roomId, ExportFormat format, OutputStream out) throws IOException {
+        ChatService.requireValidRoom(roomId);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+        try (Stream<ChatMessage> messages = chatMessageRepository.streamAfter(roomId, Long.MIN_VALUE, Long.MIN_VALUE)) {
+            Iterator<ChatMessage> iterator = messages.iterator();
+            while (iterator.hasNext()) {
+                ChatMessage message = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, message);
+                } else {
+                    writeJson(writer, message);
+                }
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        logger.info("Exported {} messages of room {} as {}", count, roomId, format);
+        return count;
+    }
+
+    private static void writeJson(Writer writer, ChatMessage message) throws IOException {
+        mapper.writeValue(writer, message);
+        writer.write('\n');
+    }
+
+    private static void writeCsv(Writer writer, ChatMessage message) throws IOException {
+        writer.write(Long.toString(message.getId()));
+        writer.write(',');
+        writer.write(csvField(message.getRoomId()));
+        writer.write(',');
+        writer.write(csvField(message.getUsername()));
+        writer.write(',');
+        writer.write(csvField(message.getMessage()));
+        writer.write(',');
+        writer.write(Long.toString(message.getTimestamp()));
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quotes a CSV field when it contains a separator, a quote or a line break, doubling its quotes.
+     *
+     * @param value the value of the field, may be null.
+     * @return the field as written in the file.
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
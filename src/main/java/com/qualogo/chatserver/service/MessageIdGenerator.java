@@ -0,0 +1,209 @@
+package com.qualogo.chatserver.service;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Generates time-ordered 64-bit message ids without any round trip, Snowflake style.
+ * An id packs, from the highest bits down, 41 bits of milliseconds since {@link #EPOCH}, 10 bits of worker id
+ * and 12 bits of sequence, so every node can generate 4096 ids per millisecond and ids sort by creation time.
+ * <p>
+ * The worker id must be unique among the running nodes. It is read from {@code chat.node.workerId} or, when not
+ * set, leased in Redis at startup: the node takes the first free {@code chat:node:worker:<id>} key for
+ * {@code chat.node.workerLeaseMs} and renews it while it runs, so the id is freed for a new node once this one
+ * stops. Startup fails when no worker id can be leased. Should the lease be lost to another node, id generation
+ * fails rather than risk duplicate ids. The state is swapped with compare-and-set, so concurrent sends never
+ * block. If the clock goes back, ids keep counting from the last millisecond used instead of repeating.
+ */
+@Component
+public class MessageIdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageIdGenerator.class);
+
+    /**
+     * Start of the id timeline: 2024-01-01T00:00:00Z, in epoch milliseconds.
+     */
+    public static final long EPOCH = 1704067200000L;
+
+    static final int WORKER_BITS = 10;
+
+    static final int SEQUENCE_BITS = 12;
+
+    static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int TIMESTAMP_SHIFT = WORKER_BITS + SEQUENCE_BITS;
+
+    /**
+     * Ids below this value were assigned by the database before ids were generated; generated ids embed
+     * at least one day of timeline.
+     */
+    private static final long MIN_GENERATED_ID = 86_400_000L << TIMESTAMP_SHIFT;
+
+    private static final String WORKER_LEASE_PREFIX = "chat:node:worker:";
+
+    private static final RedisScript<Long> LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/worker_id_lease.lua"), Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${chat.node.workerId:-1}")
+    private long workerId;
+
+    @Value("${chat.node.id:${random.uuid}}")
+    private String nodeId;
+
+    @Value("${chat.node.workerLeaseMs:60000}")
+    private long leaseMs;
+
+    /**
+     * Whether the worker id is leased in Redis rather than configured.
+     */
+    private boolean leased;
+
+    /**
+     * Set once the lease has been taken over by another node; ids are no longer generated from then on.
+     */
+    private volatile boolean leaseLost;
+
+    /**
+     * The last millisecond used, relative to the epoch, and the last sequence within it.
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * Resolves the worker id of this node.
+     *
+     * @throws IllegalStateException if the configured worker id is out of range or no worker id can be leased
+     */
+    @PostConstruct
+    public void init() {
+        if (workerId >= 0) {
+            if (workerId > MAX_WORKER_ID) {
+                throw new IllegalStateException("chat.node.workerId must be between 0 and " + MAX_WORKER_ID);
+            }
+            return;
+        }
+        try {
+            for (long candidate = 0; candidate <= MAX_WORKER_ID; candidate++) {
+                if (lease(candidate)) {
+                    workerId = candidate;
+                    leased = true;
+                    logger.info("Generating message ids as worker {}", workerId);
+                    return;
+                }
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException("Cannot lease a worker id from Redis, set chat.node.workerId", ex);
+        }
+        throw new IllegalStateException("All " + (MAX_WORKER_ID + 1) + " worker ids are leased by other nodes");
+    }
+
+    /**
+     * Renews the lease of the worker id. A lease that expired meanwhile is taken again if still free.
+     */
+    @Scheduled(fixedDelayString = "${chat.node.workerLeaseRenewMs:20000}")
+    public void renewLease() {
+        if (!leased || leaseLost) {
+            return;
+        }
+        try {
+            if (!lease(workerId)) {
+                leaseLost = true;
+                logger.error("Worker id {} has been leased by another node, message ids can no longer be generated", workerId);
+            }
+        } catch (Exception ex) {
+            // Retried on the next renewal, the lease lasts several renewal intervals
+            logger.warn("Cannot renew the lease of worker id {}: {}", workerId, ex.getMessage());
+        }
+    }
+
+    /**
+     * Takes or renews the lease of a worker id for this node.
+     *
+     * @param candidate the worker id
+     * @return true if this node holds the lease
+     */
+    private boolean lease(long candidate) {
+        Long held = redisTemplate.execute(LEASE_SCRIPT, StringRedisSerializer.UTF_8,
+                new GenericToStringSerializer<>(Long.class),
+                Collections.singletonList(WORKER_LEASE_PREFIX + candidate), nodeId, String.valueOf(leaseMs));
+        return held != null && held == 1L;
+    }
+
+    /**
+     * Generates the next id.
+     *
+     * @return an id greater than every id generated before on this node
+     * @throws IllegalStateException if the lease of the worker id has been lost
+     */
+    public long nextId() {
+        if (leaseLost) {
+            throw new IllegalStateException("Worker id " + workerId + " is no longer leased by this node");
+        }
+        while (true) {
+            long current = state.get();
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long sequence = current & MAX_SEQUENCE;
+            long millis = Math.max(System.currentTimeMillis() - EPOCH, lastMillis);
+            long next;
+            if (millis > lastMillis) {
+                next = millis << SEQUENCE_BITS;
+            } else if (sequence < MAX_SEQUENCE) {
+                next = current + 1;
+            } else {
+                // Sequence exhausted: borrow the next millisecond
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+            if (state.compareAndSet(current, next)) {
+                long nextMillis = next >>> SEQUENCE_BITS;
+                return (nextMillis << TIMESTAMP_SHIFT) | (workerId << SEQUENCE_BITS) | (next & MAX_SEQUENCE);
+            }
+        }
+    }
+
+    /**
+     * Returns the creation time embedded in a generated id.
+     *
+     * @param id the generated id
+     * @return the creation time, in epoch milliseconds
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * Tells whether an id was generated, rather than assigned by the database before ids were generated.
+     *
+     * @param id the id
+     * @return true if the id embeds its creation time
+     */
+    public static boolean isGenerated(long id) {
+        return id >= MIN_GENERATED_ID;
+    }
+
+    /**
+     * Returns the worker id of this node.
+     *
+     * @return the worker id
+     */
+    public long getWorkerId() {
+        return workerId;
+    }
+}
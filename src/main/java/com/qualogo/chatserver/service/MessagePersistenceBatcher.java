@@ -0,0 +1,269 @@
+package com.qualogo.chatserver.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes messages to the database behind their delivery, when {@code chat.writeBehind.enabled} is set.
+ * <p>
+ * {@link ChatService} stores a message in Redis and appends its id to the {@code chat:persist} stream in
+ * the same transaction, then acknowledges the sender. Every {@code chat.writeBehind.flushIntervalMs} this
+ * batcher reads up to {@code chat.writeBehind.batchSize} entries through the {@code chat-persist} consumer
+ * group, writes them with one multi-row {@code INSERT IGNORE} and acknowledges them. Deletions go through
+ * the same stream, so a message deleted before it is flushed is never written back.
+ * <p>
+ * Entries are only acknowledged once written, so a failed batch stays pending. Entries pending for longer
+ * than {@code chat.writeBehind.claimIdleMs}, whether a write failed or a node stopped, are claimed and
+ * written again; {@code INSERT IGNORE} makes a repeated write harmless.
+ */
+@Service
+public class MessagePersistenceBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePersistenceBatcher.class);
+
+    /**
+     * The stream holding the messages to write to the database.
+     */
+    public static final String STREAM_KEY = "chat:persist";
+
+    static final String GROUP = "chat-persist";
+
+    static final String OP_INSERT = "insert";
+
+    static final String OP_DELETE = "delete";
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO chat_message (id, room_id, username, message, timestamp) VALUES ";
+
+    private static final int MAX_BATCHES_PER_FLUSH = 10;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${chat.writeBehind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.writeBehind.batchSize:500}")
+    private int batchSize;
+
+    @Value("${chat.writeBehind.claimIdleMs:10000}")
+    private long claimIdleMs;
+
+    @Value("${chat.node.id:${random.uuid}}")
+    private String consumerName;
+
+    private volatile boolean groupCreated;
+
+    /**
+     * Returns the stream entry requesting a message to be written.
+     *
+     * @param messageId the id of the message, whose content is read from its {@code message:<id>} hash
+     * @return the fields of the entry
+     */
+    public static Map<String, Object> insertEntry(long messageId) {
+        return entry(OP_INSERT, messageId);
+    }
+
+    /**
+     * Returns the stream entry requesting a message to be deleted.
+     *
+     * @param messageId the id of the message
+     * @param timestamp the timestamp of the message, naming the partition holding it
+     * @return the fields of the entry
+     */
+    public static Map<String, Object> deleteEntry(long messageId, long timestamp) {
+        Map<String, Object> fields = entry(OP_DELETE, messageId);
+        fields.put("timestamp", timestamp);
+        return fields;
+    }
+
+    private static Map<String, Object> entry(String op, long messageId) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("op", op);
+        fields.put("id", messageId);
+        return fields;
+    }
+
+    /**
+     * Writes the pending stream entries to the database: first the entries abandoned by a failed write
+     * or a stopped node, then the new ones.
+     */
+    @Scheduled(fixedDelayString = "${chat.writeBehind.flushIntervalMs:100}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            createGroup();
+            StreamOperations<String, Object, Object> streams = redisTemplate.opsForStream();
+            List<MapRecord<String, Object, Object>> claimed = claimStale(streams);
+            if (!claimed.isEmpty()) {
+                write(streams, claimed);
+            }
+            StreamOffset<String> newEntries = StreamOffset.create(STREAM_KEY, ReadOffset.lastConsumed());
+            for (int i = 0; i < MAX_BATCHES_PER_FLUSH; i++) {
+                // The varargs array of the single offset is only read by the call
+                @SuppressWarnings("unchecked")
+                List<MapRecord<String, Object, Object>> records = streams.read(Consumer.from(GROUP, consumerName),
+                        StreamReadOptions.empty().count(batchSize), newEntries);
+                if (records == null || records.isEmpty()) {
+                    return;
+                }
+                write(streams, records);
+                if (records.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception ex) {
+            // Unacknowledged entries stay pending and are claimed again after chat.writeBehind.claimIdleMs
+            logger.warn("Cannot write messages to the database, will retry: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Creates the consumer group, and the stream if needed, unless they already exist.
+     */
+    private void createGroup() {
+        if (groupCreated) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.streamCommands()
+                    .xGroupCreate(STREAM_KEY.getBytes(StandardCharsets.UTF_8), GROUP, ReadOffset.from("0"), true));
+        } catch (Exception ex) {
+            String message = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+            if (message == null || !message.contains("BUSYGROUP")) {
+                throw ex;
+            }
+        }
+        groupCreated = true;
+    }
+
+    /**
+     * Takes over the entries delivered but not acknowledged for longer than {@code chat.writeBehind.claimIdleMs}.
+     *
+     * @param streams the stream operations
+     * @return the claimed entries
+     */
+    private List<MapRecord<String, Object, Object>> claimStale(StreamOperations<String, Object, Object> streams) {
+        PendingMessages pending = streams.pending(STREAM_KEY, GROUP, Range.unbounded(), batchSize);
+        List<RecordId> stale = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().toMillis() >= claimIdleMs) {
+                stale.add(message.getId());
+            }
+        }
+        if (stale.isEmpty()) {
+            return Collections.emptyList();
+        }
+        logger.info("Claiming {} message entries left unwritten", stale.size());
+        List<MapRecord<String, Object, Object>> claimed = streams.claim(STREAM_KEY, GROUP, consumerName,
+                Duration.ofMillis(claimIdleMs), stale.toArray(new RecordId[0]));
+        return claimed != null ? claimed : Collections.emptyList();
+    }
+
+    /**
+     * Writes a batch of entries to the database, then acknowledges and removes them from the stream.
+     *
+     * @param streams the stream operations
+     * @param records the entries to write
+     */
+    private void write(StreamOperations<String, Object, Object> streams, List<MapRecord<String, Object, Object>> records) {
+        List<Long> inserts = new ArrayList<>();
+        List<Object> deletes = new ArrayList<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<Object, Object> fields = record.getValue();
+            if (!(fields.get("id") instanceof Number id)) {
+                continue;
+            }
+            if (!OP_DELETE.equals(fields.get("op"))) {
+                inserts.add(id.longValue());
+            } else if (fields.get("timestamp") instanceof Number timestamp) {
+                deletes.add(id.longValue());
+                deletes.add(timestamp.longValue());
+            }
+        }
+
+        insert(inserts);
+        if (!deletes.isEmpty()) {
+            // The timestamps let the database prune to the partitions holding the messages
+            jdbcTemplate.update("DELETE FROM chat_message WHERE " + placeholders(deletes.size() / 2, "(id = ? AND timestamp = ?)", " OR "),
+                    deletes.toArray());
+        }
+
+        RecordId[] ids = records.stream().map(MapRecord::getId).toArray(RecordId[]::new);
+        streams.acknowledge(STREAM_KEY, GROUP, ids);
+        streams.delete(STREAM_KEY, ids);
+    }
+
+    /**
+     * Inserts the messages with the given ids, read from their {@code message:<id>} hashes, in a single statement.
+     * Messages whose hash is gone have been deleted since, and are skipped.
+     *
+     * @param messageIds the ids of the messages to insert
+     */
+    private void insert(List<Long> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        List<Object> hashes = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                for (Long id : messageIds) {
+                    operations.opsForHash().entries((K) ("message:" + id));
+                }
+                return null;
+            }
+        });
+
+        List<Object> args = new ArrayList<>(messageIds.size() * 5);
+        for (int i = 0; i < messageIds.size(); i++) {
+            if (hashes.get(i) instanceof Map<?, ?> message && !message.isEmpty()) {
+                args.add(messageIds.get(i));
+                args.add(message.get("room"));
+                args.add(message.get("user"));
+                args.add(message.get("content"));
+                args.add(message.get("timestamp"));
+            }
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.update(INSERT_SQL + placeholders(args.size() / 5, "(?, ?, ?, ?, ?)", ", "), args.toArray());
+        }
+    }
+
+    private static String placeholders(int count, String placeholder, String separator) {
+        return String.join(separator, Collections.nCopies(count, placeholder));
+    }
+}
@@ -0,0 +1,176 @@
+package com.qualogo.chatserver.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
+
+/**
+ * Bounded, lock-free ring buffer of the most recent messages of a chat room.
+ * Writers claim a sequence number and publish into its slot with a compare-and-set, so neither
+ * writers nor readers ever block. The ring tracks a floor: the newest position evicted so far.
+ * Every message after the floor that was appended is still in the ring, so reads starting at or
+ * after the floor are complete.
+ */
+public class MessageRing {
+
+    private static final Comparator<ChatMessage> ORDER =
+            Comparator.comparingLong(ChatMessage::getTimestamp).thenComparingLong(ChatMessage::getId);
+
+    private final AtomicReferenceArray<Slot> slots;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicReference<MessageCursor> floor;
+
+    private final long loadedAt;
+
+    /**
+     * Constructs a new MessageRing holding the given messages.
+     *
+     * @param capacity the maximum number of messages held
+     * @param floor the position the messages were loaded after
+     * @param messages every message of the room after the floor, oldest first
+     */
+    public MessageRing(int capacity, MessageCursor floor, List<ChatMessage> messages) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.floor = new AtomicReference<>(floor);
+        this.loadedAt = System.nanoTime();
+        for (ChatMessage message : messages) {
+            append(message);
+        }
+    }
+
+    /**
+     * Checks whether every message after the given cursor is held by the ring.
+     *
+     * @param cursor the position to check
+     * @return true if reads starting at the cursor can be served by the ring, false otherwise
+     */
+    public boolean covers(MessageCursor cursor) {
+        MessageCursor current = floor.get();
+        return !cursor.isBefore(current.getTimestamp(), current.getId());
+    }
+
+    /**
+     * Appends a message, evicting the oldest slot once the ring is full.
+     *
+     * @param message the message to append
+     */
+    public void append(ChatMessage message) {
+        if (!covers(new MessageCursor(message.getTimestamp(), message.getId()))) {
+            // Older than what the ring answers for; readers of that range go to Redis anyway
+            return;
+        }
+        long seq = head.getAndIncrement();
+        int index = (int) (seq % slots.length());
+        Slot slot = new Slot(seq, message);
+        while (true) {
+            Slot current = slots.get(index);
+            if (current != null && current.seq() > seq) {
+                // A writer that lapped this one already took the slot
+                raiseFloor(message);
+                return;
+            }
+            if (current != null && current.message() != null) {
+                raiseFloor(current.message());
+            }
+            if (slots.compareAndSet(index, current, slot)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes a message from the ring.
+     *
+     * @param messageId the id of the message to remove
+     */
+    public void remove(long messageId) {
+        for (int index = 0; index < slots.length(); index++) {
+            while (true) {
+                Slot current = slots.get(index);
+                if (current == null || current.message() == null || current.message().getId() != messageId) {
+                    break;
+                }
+                if (slots.compareAndSet(index, current, new Slot(current.seq(), null))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads one page of messages after the given cursor.
+     *
+     * @param cursor the position after which to retrieve messages
+     * @param limit the maximum number of messages to return
+     * @return the page of messages, or null if the ring does not cover the cursor
+     */
+    public MessagePage page(MessageCursor cursor, int limit) {
+        if (!covers(cursor)) {
+            return null;
+        }
+        List<ChatMessage> found = new ArrayList<>();
+        for (int index = 0; index < slots.length(); index++) {
+            Slot slot = slots.get(index);
+            if (slot != null && slot.message() != null
+                    && cursor.isBefore(slot.message().getTimestamp(), slot.message().getId())) {
+                found.add(slot.message());
+            }
+        }
+        // Messages evicted while scanning may have left a gap
+        if (!covers(cursor)) {
+            return null;
+        }
+
+        found.sort(ORDER);
+        List<ChatMessage> page = new ArrayList<>(Math.min(limit, found.size()));
+        for (ChatMessage message : found) {
+            if (!page.isEmpty() && page.get(page.size() - 1).getId() == message.getId()) {
+                continue;
+            }
+            if (page.size() == limit) {
+                ChatMessage last = page.get(limit - 1);
+                return new MessagePage(page, new MessageCursor(last.getTimestamp(), last.getId()).encode());
+            }
+            page.add(message);
+        }
+        return new MessagePage(page, null);
+    }
+
+    /**
+     * Returns the floor of the ring: the newest position not guaranteed to be held.
+     *
+     * @return the floor
+     */
+    public MessageCursor getFloor() {
+        return floor.get();
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the ring was loaded.
+     *
+     * @return the load time in nanoseconds
+     */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    private void raiseFloor(ChatMessage evicted) {
+        MessageCursor position = new MessageCursor(evicted.getTimestamp(), evicted.getId());
+        floor.accumulateAndGet(position, (current, candidate) ->
+                current.isBefore(candidate.getTimestamp(), candidate.getId()) ? candidate : current);
+    }
+
+    /**
+     * Slot content tagged with the sequence number it was written for; a null message marks a deleted message.
+     */
+    private record Slot(long seq, ChatMessage message) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.qualogo.chatserver.service;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+/**
+ * Application event published after a chat message has been stored.
+ * Push channels listen for it to deliver the message to connected clients.
+ * Messages accepted by other nodes of the cluster are republished locally as remote events.
+ */
+public class MessageSentEvent {
+
+    private final ChatMessage message;
+
+    private final boolean remote;
+
+    /**
+     * Constructs a new MessageSentEvent for a message accepted by this node.
+     *
+     * @param message the message that has been sent
+     */
+    public MessageSentEvent(ChatMessage message) {
+        this(message, false);
+    }
+
+    /**
+     * Constructs a new MessageSentEvent for the given message.
+     *
+     * @param message the message that has been sent
+     * @param remote whether the message was accepted by another node
+     */
+    public MessageSentEvent(ChatMessage message, boolean remote) {
+        this.message = message;
+        this.remote = remote;
+    }
+
+    /**
+     * Returns the message that has been sent.
+     *
+     * @return the message
+     */
+    public ChatMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Indicates whether the message was accepted by another node of the cluster.
+     *
+     * @return true if the message was relayed from another node, false otherwise
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+}
@@ -0,0 +1,205 @@
+package com.qualogo.chatserver.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-process cache of the most recent messages of each chat room.
+ * Each room entry is a lock-free {@link MessageRing} of its last {@code chat.cache.tailSize} messages, so
+ * reads starting at or after the ring's floor are answered from memory without taking any lock.
+ * Rings are fed by the sent and deleted events of this node and of the rest of the cluster, and are
+ * dropped {@code chat.cache.ttlSeconds} after being loaded to bound the staleness left by a lost event.
+ * <p>
+ * A load racing a write must not install a ring missing that write. Writes bump a per-room version
+ * before updating the ring, and a loaded ring is only kept if the version it was read at is still
+ * current once it is installed.
+ */
+@Service
+public class MessageTailCache {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.cache.tailSize:200}")
+    private int tailSize;
+
+    @Value("${chat.cache.maxRooms:10000}")
+    private long maxRooms;
+
+    @Value("${chat.cache.ttlSeconds:60}")
+    private long ttlSeconds;
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private Cache<String, MessageRing> tails;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    /**
+     * Builds the cache and registers its metrics.
+     * The hit rate of reads is exposed by the {@code chat.cache.tail.requests} counter tagged with {@code result}.
+     */
+    @PostConstruct
+    public void init() {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        tails = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfter(new Expiry<String, MessageRing>() {
+                    @Override
+                    public long expireAfterCreate(String roomId, MessageRing ring, long currentTime) {
+                        return Math.max(0, ttlNanos - (currentTime - ring.getLoadedAt()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String roomId, MessageRing ring, long currentTime, long currentDuration) {
+                        return Math.max(0, ttlNanos - (currentTime - ring.getLoadedAt()));
+                    }
+
+                    @Override
+                    public long expireAfterRead(String roomId, MessageRing ring, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tails, "chatTailCache");
+        hits = Counter.builder("chat.cache.tail.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("chat.cache.tail.requests").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * Reads one page of messages of a room from memory.
+     *
+     * @param roomId the id of the room to retrieve messages from.
+     * @param cursor the position after which to retrieve messages.
+     * @param limit the maximum number of messages to return.
+     * @return the page of messages, or null if the cached tail of the room does not cover the cursor.
+     */
+    public MessagePage find(String roomId, MessageCursor cursor, int limit) {
+        MessageRing ring = tailSize > 0 ? tails.getIfPresent(roomId) : null;
+        MessagePage page = ring != null ? ring.page(cursor, limit) : null;
+        if (page == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return page;
+    }
+
+    /**
+     * Returns the write version of a room, to be read before loading messages passed to {@link #seed}.
+     *
+     * @param roomId the id of the room.
+     * @return the current write version of the room.
+     */
+    public long version(String roomId) {
+        return versions.get(stripe(roomId));
+    }
+
+    /**
+     * Installs the messages loaded for a room as its ring.
+     * The messages must be every message of the room after the cursor, oldest first.
+     * Nothing is installed if the room has been written since the given version was read.
+     *
+     * @param roomId the id of the room.
+     * @param cursor the position the messages were loaded after.
+     * @param messages every message of the room after the cursor, oldest first.
+     * @param version the write version of the room read before loading the messages.
+     */
+    public void seed(String roomId, MessageCursor cursor, List<ChatMessage> messages, long version) {
+        if (tailSize <= 0) {
+            return;
+        }
+        MessageRing loaded = new MessageRing(tailSize, cursor, messages);
+        MessageRing installed = tails.asMap().compute(roomId, (key, current) -> {
+            if (versions.get(stripe(roomId)) != version) {
+                return current;
+            }
+            // Keep the ring reaching further back when both are current
+            if (current != null && current.covers(loaded.getFloor())) {
+                return current;
+            }
+            return loaded;
+        });
+        // A write that bumped the version after the check above may have missed the new ring
+        if (installed == loaded && versions.get(stripe(roomId)) != version) {
+            tails.asMap().remove(roomId, loaded);
+        }
+    }
+
+    /**
+     * Appends a sent message to the ring of its room.
+     *
+     * @param event the event carrying the sent message
+     */
+    @EventListener
+    public void onMessageSent(MessageSentEvent event) {
+        ChatMessage message = event.getMessage();
+        versions.incrementAndGet(stripe(message.getRoomId()));
+        MessageRing ring = tails.getIfPresent(message.getRoomId());
+        if (ring != null) {
+            ring.append(message);
+        }
+    }
+
+    /**
+     * Removes a deleted message from the ring of its room.
+     *
+     * @param event the event carrying the deleted message
+     */
+    @EventListener
+    public void onMessageDeleted(MessageDeletedEvent event) {
+        ChatMessage message = event.getMessage();
+        versions.incrementAndGet(stripe(message.getRoomId()));
+        MessageRing ring = tails.getIfPresent(message.getRoomId());
+        if (ring != null) {
+            ring.remove(message.getId());
+        }
+    }
+
+    /**
+     * Drops the rings of all rooms, for instance after expired messages have been removed from Redis.
+     * Bumping the versions keeps a load in progress from installing a ring read before the removal.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        tails.invalidateAll();
+    }
+
+    /**
+     * Returns the number of rooms whose tail is cached.
+     *
+     * @return the number of cached rooms
+     */
+    public long getRoomCount() {
+        tails.cleanUp();
+        return tails.estimatedSize();
+    }
+
+    private static int stripe(String roomId) {
+        return (roomId.hashCode() & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+}
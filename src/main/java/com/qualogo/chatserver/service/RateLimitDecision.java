@@ -0,0 +1,53 @@
+package com.qualogo.chatserver.service;
+
+/**
+ * Outcome of a rate limit check.
+ */
+public class RateLimitDecision {
+
+    private final boolean allowed;
+
+    private final long remaining;
+
+    private final long retryAfterMillis;
+
+    /**
+     * Constructs a new RateLimitDecision.
+     *
+     * @param allowed whether the request is allowed
+     * @param remaining the number of units left in the current budget
+     * @param retryAfterMillis the time until the request would be allowed, 0 if it is allowed
+     */
+    public RateLimitDecision(boolean allowed, long remaining, long retryAfterMillis) {
+        this.allowed = allowed;
+        this.remaining = Math.max(0, remaining);
+        this.retryAfterMillis = Math.max(0, retryAfterMillis);
+    }
+
+    /**
+     * Indicates whether the request is allowed.
+     *
+     * @return true if the request is allowed, false otherwise
+     */
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    /**
+     * Gets the number of units left in the current budget.
+     *
+     * @return the remaining units
+     */
+    public long getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Gets the time until the request would be allowed.
+     *
+     * @return the time in milliseconds, 0 if the request is allowed
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,38 @@
+package com.qualogo.chatserver.service;
+
+import java.util.Locale;
+
+/**
+ * Operations rate limited with their own policy and counter.
+ */
+public enum RateLimitOperation {
+
+    /**
+     * Joining a chat room.
+     */
+    JOIN,
+
+    /**
+     * Sending a message.
+     */
+    SEND,
+
+    /**
+     * Reading messages, including long polls and message streams.
+     */
+    RECEIVE,
+
+    /**
+     * Deleting a message.
+     */
+    DELETE;
+
+    /**
+     * Returns the name of the operation used in property names and Redis keys.
+     *
+     * @return the lower-case name of the operation
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
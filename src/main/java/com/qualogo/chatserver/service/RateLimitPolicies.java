@@ -0,0 +1,149 @@
+package com.qualogo.chatserver.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Holds the rate limit policy of each {@link RateLimitOperation}.
+ * A policy is read from the {@code rate.limit.policy.<operation>.limit|window|burst|cost} properties,
+ * falling back to {@code rate.limit.maxRequests} and {@code rate.limit.timeWindow}, a burst equal to the
+ * limit and a cost of 1. A policy charging more than its burst could never admit a request and is rejected.
+ * <p>
+ * When {@code rate.limit.policyFile} names a properties file, the same properties in that file take
+ * precedence, and the file is checked for changes every {@code rate.limit.policyReloadMs} so policies
+ * can be tuned without a restart.
+ */
+@Service
+public class RateLimitPolicies {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitPolicies.class);
+
+    private static final String PREFIX = "rate.limit.policy.";
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${rate.limit.policyFile:}")
+    private String policyFile;
+
+    private volatile Map<RateLimitOperation, RateLimitPolicy> policies = new EnumMap<>(RateLimitOperation.class);
+
+    private long policyFileModified;
+
+    /**
+     * Loads the policies at startup.
+     *
+     * @throws IllegalStateException if the policies are invalid
+     */
+    @PostConstruct
+    public void init() {
+        reload();
+        if (policies.isEmpty()) {
+            throw new IllegalStateException("Invalid rate limit policies, see the log for the reason");
+        }
+    }
+
+    /**
+     * Returns the policy of an operation.
+     *
+     * @param operation the rate limited operation
+     * @return the policy of the operation
+     */
+    public RateLimitPolicy get(RateLimitOperation operation) {
+        return policies.get(operation);
+    }
+
+    /**
+     * Reloads the policies if the policy file has changed since it was last read.
+     */
+    @Scheduled(fixedDelayString = "${rate.limit.policyReloadMs:10000}")
+    public void reloadIfChanged() {
+        if (policyFile == null || policyFile.isEmpty()) {
+            return;
+        }
+        try {
+            Path path = Paths.get(policyFile);
+            long modified = Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() : 0;
+            if (modified != policyFileModified) {
+                reload();
+            }
+        } catch (IOException ex) {
+            logger.warn("Cannot check rate limit policy file {}: {}", policyFile, ex.getMessage());
+        }
+    }
+
+    /**
+     * Reads the policies of every operation from the environment and the policy file.
+     */
+    public void reload() {
+        Properties overrides = new Properties();
+        long modified = 0;
+        if (policyFile != null && !policyFile.isEmpty()) {
+            Path path = Paths.get(policyFile);
+            if (Files.exists(path)) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    modified = Files.getLastModifiedTime(path).toMillis();
+                    overrides.load(in);
+                } catch (IOException ex) {
+                    logger.warn("Cannot read rate limit policy file {}, keeping current policies: {}", policyFile, ex.getMessage());
+                    return;
+                }
+            }
+        }
+
+        int defaultLimit = environment.getProperty("rate.limit.maxRequests", Integer.class, 100);
+        int defaultWindow = environment.getProperty("rate.limit.timeWindow", Integer.class, 60);
+        Map<RateLimitOperation, RateLimitPolicy> loaded = new EnumMap<>(RateLimitOperation.class);
+        try {
+            for (RateLimitOperation operation : RateLimitOperation.values()) {
+                String prefix = PREFIX + operation.key() + ".";
+                int limit = property(overrides, prefix + "limit", defaultLimit);
+                int burst = property(overrides, prefix + "burst", limit);
+                int cost = property(overrides, prefix + "cost", 1);
+                if (cost > burst) {
+                    throw new IllegalArgumentException(prefix + "cost must not exceed " + prefix + "burst");
+                }
+                loaded.put(operation, new RateLimitPolicy(limit,
+                        property(overrides, prefix + "window", defaultWindow), burst, cost));
+            }
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Invalid rate limit policy, keeping current policies: {}", ex.getMessage());
+            return;
+        }
+
+        policies = loaded;
+        policyFileModified = modified;
+        logger.info("Loaded rate limit policies {}", loaded);
+    }
+
+    private int property(Properties overrides, String name, int defaultValue) {
+        String value = overrides.getProperty(name);
+        if (value == null) {
+            value = environment.getProperty(name);
+        }
+        if (value == null) {
+            return defaultValue;
+        }
+        int parsed = Integer.parseInt(value.trim());
+        if (parsed <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,74 @@
+package com.qualogo.chatserver.service;
+
+/**
+ * Rate limit applied to one operation.
+ * Requests are charged {@code cost} units against a budget of {@code limit} units per window of
+ * {@code windowSeconds}. The GCRA and local token bucket algorithms also let up to {@code burst} units be
+ * taken at once; the fixed and sliding window algorithms ignore {@code burst}.
+ */
+public class RateLimitPolicy {
+
+    private final int limit;
+
+    private final int windowSeconds;
+
+    private final int burst;
+
+    private final int cost;
+
+    /**
+     * Constructs a new RateLimitPolicy.
+     *
+     * @param limit the number of units allowed per window
+     * @param windowSeconds the length of the window in seconds
+     * @param burst the number of units that can be taken at once
+     * @param cost the number of units charged per request
+     */
+    public RateLimitPolicy(int limit, int windowSeconds, int burst, int cost) {
+        this.limit = limit;
+        this.windowSeconds = windowSeconds;
+        this.burst = burst;
+        this.cost = cost;
+    }
+
+    /**
+     * Gets the number of units allowed per window.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the length of the window in seconds.
+     *
+     * @return the window length
+     */
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    /**
+     * Gets the number of units that can be taken at once, used by the GCRA and local token bucket algorithms.
+     *
+     * @return the burst size
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Gets the number of units charged per request.
+     *
+     * @return the cost
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitPolicy{limit=" + limit + ", windowSeconds=" + windowSeconds + ", burst=" + burst + ", cost=" + cost + "}";
+    }
+}
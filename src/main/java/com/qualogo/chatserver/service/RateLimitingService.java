@@ -1,26 +1,83 @@
 package com.qualogo.chatserver.service;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Service;
 
 /**
  * Service for rate limiting user requests using Redis.
+ * Each {@link RateLimitOperation} is limited by its own counter and {@link RateLimitPolicy}, see {@link RateLimitPolicies}.
+ * The algorithm is selected by {@code rate.limit.algorithm}:
+ * <ul>
+ *     <li>{@code fixed-window}: a counter per user reset every {@code rate.limit.timeWindow} seconds.</li>
+ *     <li>{@code sliding-window}: a sliding window counter evaluated atomically by a Lua script in one round trip,
+ *     which does not let a client send twice the limit across a window boundary.</li>
+ *     <li>{@code local-token-bucket}: in-memory token buckets reconciled with Redis in the background,
+ *     which takes Redis off the request path, see {@link LocalTokenBucketLimiter}.</li>
+ *     <li>{@code gcra}: the generic cell rate algorithm, which stores a single timestamp per counter and
+ *     spaces requests evenly while allowing a burst, evaluated atomically by a Lua script.</li>
+ * </ul>
+ * Every algorithm answers with a {@link RateLimitDecision} telling how much budget is left and, when the
+ * request is denied, how long the client should wait.
  */
 @Service
 public class RateLimitingService {
 
+    /**
+     * Value of {@code rate.limit.algorithm} selecting the fixed window counter.
+     */
+    public static final String FIXED_WINDOW = "fixed-window";
+
+    /**
+     * Value of {@code rate.limit.algorithm} selecting the sliding window counter.
+     */
+    public static final String SLIDING_WINDOW = "sliding-window";
+
+    /**
+     * Value of {@code rate.limit.algorithm} selecting the local token buckets.
+     */
+    public static final String LOCAL_TOKEN_BUCKET = "local-token-bucket";
+
+    /**
+     * Value of {@code rate.limit.algorithm} selecting the generic cell rate algorithm.
+     */
+    public static final String GCRA = "gcra";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SLIDING_WINDOW_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/sliding_window_rate_limit.lua"), List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GCRA_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/gcra_rate_limit.lua"), List.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private LocalTokenBucketLimiter localTokenBucketLimiter;
+
+    @Autowired
+    private RateLimitPolicies rateLimitPolicies;
+
     @Value("${rate.limit.maxRequests}")
     private int maxRequests;
 
     @Value("${rate.limit.timeWindow}")
     private int timeWindow;
 
+    @Value("${rate.limit.algorithm:" + FIXED_WINDOW + "}")
+    private String algorithm = FIXED_WINDOW;
+
     /**
      * Checks if a user is allowed to make a request based on the rate limit.
      *
@@ -28,12 +85,96 @@ public class RateLimitingService {
      * @return true if the user is allowed to make the request, false otherwise
      */
     public boolean isAllowed(String userId) {
-        String key = "rateLimit:" + userId;
-        Long currentCount = redisTemplate.opsForValue().increment(key, 1);
-        if (currentCount == 1) {
-            redisTemplate.expire(key, getTimeWindow(), TimeUnit.SECONDS);
+        return check(userId, new RateLimitPolicy(getMaxRequests(), getTimeWindow(), getMaxRequests(), 1)).isAllowed();
+    }
+
+    /**
+     * Checks if a user is allowed to perform an operation based on the policy of the operation.
+     * Each operation has its own counter, so for example polling for messages does not use up the sending quota.
+     *
+     * @param userId the ID of the user making the request
+     * @param operation the operation requested
+     * @return true if the user is allowed to perform the operation, false otherwise
+     */
+    public boolean isAllowed(String userId, RateLimitOperation operation) {
+        return check(userId, operation).isAllowed();
+    }
+
+    /**
+     * Charges a request of a user against the policy of an operation.
+     *
+     * @param userId the ID of the user making the request
+     * @param operation the operation requested
+     * @return the decision, with the remaining budget and the time to wait when denied
+     */
+    public RateLimitDecision check(String userId, RateLimitOperation operation) {
+        return check(operation.key() + ":" + userId, rateLimitPolicies.get(operation));
+    }
+
+    /**
+     * Charges a request against a counter with the configured algorithm.
+     *
+     * @param name the name of the counter
+     * @param policy the policy of the counter
+     * @return the decision
+     */
+    private RateLimitDecision check(String name, RateLimitPolicy policy) {
+        long windowMillis = TimeUnit.SECONDS.toMillis(policy.getWindowSeconds());
+        if (GCRA.equals(getAlgorithm())) {
+            // Emission interval: the time it takes to earn back one unit at the sustained rate
+            return execute(GCRA_SCRIPT, "rateLimit:gcra:" + name,
+                    Math.max(1, windowMillis / policy.getLimit()), policy.getBurst(), policy.getCost());
+        }
+        if (SLIDING_WINDOW.equals(getAlgorithm())) {
+            return execute(SLIDING_WINDOW_SCRIPT, "rateLimit:sliding:" + name,
+                    policy.getLimit(), windowMillis, policy.getCost());
+        }
+        if (LOCAL_TOKEN_BUCKET.equals(getAlgorithm())) {
+            return localTokenBucketLimiter.tryAcquire(name, policy.getBurst(), policy.getLimit(),
+                    windowMillis, policy.getCost());
+        }
+        String key = "rateLimit:" + name;
+        Long currentCount = redisTemplate.opsForValue().increment(key, policy.getCost());
+        if (currentCount == null) {
+            return new RateLimitDecision(false, 0, windowMillis);
+        }
+        if (currentCount == policy.getCost()) {
+            redisTemplate.expire(key, policy.getWindowSeconds(), TimeUnit.SECONDS);
+        }
+        if (currentCount <= policy.getLimit()) {
+            return new RateLimitDecision(true, policy.getLimit() - currentCount, 0);
+        }
+        Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+        return new RateLimitDecision(false, 0, ttl != null && ttl > 0 ? ttl : windowMillis);
+    }
+
+    /**
+     * Charges a request against a counter with a rate limit script.
+     * The script returns whether the request is allowed, the remaining budget and the time to wait.
+     *
+     * @param script the script to run
+     * @param key the key of the counter
+     * @param args the arguments of the script
+     * @return the decision
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private RateLimitDecision execute(RedisScript<List> script, String key, long... args) {
+        Object[] values = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = String.valueOf(args[i]);
         }
-        return currentCount <= getMaxRequests();
+        // Elements of the returned table are deserialized one by one
+        RedisSerializer<List> resultSerializer = (RedisSerializer) new GenericToStringSerializer<>(Long.class);
+        List result = redisTemplate.execute(script, StringRedisSerializer.UTF_8, resultSerializer,
+                Collections.singletonList(key), values);
+        if (result == null || result.size() < 3) {
+            return new RateLimitDecision(false, 0, 0);
+        }
+        return new RateLimitDecision(toLong(result.get(0)) == 1L, toLong(result.get(1)), toLong(result.get(2)));
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(String.valueOf(value));
     }
 
     /**
@@ -71,4 +212,22 @@ public class RateLimitingService {
     public void setTimeWindow(int timeWindow) {
         this.timeWindow = timeWindow;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the rate limiting algorithm.
+     *
+     * @return the algorithm, {@value #FIXED_WINDOW}, {@value #SLIDING_WINDOW}, {@value #LOCAL_TOKEN_BUCKET} or {@value #GCRA}
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Sets the rate limiting algorithm.
+     *
+     * @param algorithm the algorithm to set, {@value #FIXED_WINDOW}, {@value #SLIDING_WINDOW}, {@value #LOCAL_TOKEN_BUCKET} or {@value #GCRA}
+     */
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+}
@@ -0,0 +1,40 @@
+-- Schema of a new database at the time migrations were introduced: application-generated message ids,
+-- messages grouped by room.
+-- Databases created earlier by Hibernate are baselined at this version and skip this script, so they still have
+-- an AUTO_INCREMENT message id and may lack room_id; V2 brings them to this schema.
+
+CREATE TABLE IF NOT EXISTS roles (
+    id INT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(20),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(20) NOT NULL,
+    email VARCHAR(50) NOT NULL,
+    password VARCHAR(120) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT NOT NULL,
+    role_id INT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE IF NOT EXISTS chat_message (
+    id BIGINT NOT NULL,
+    room_id VARCHAR(50) NOT NULL DEFAULT 'general',
+    username VARCHAR(255),
+    message TEXT,
+    timestamp BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_chat_message_room_timestamp (room_id, timestamp)
+);
+
+INSERT INTO roles (name) VALUES ('ROLE_USER'), ('ROLE_MODERATOR'), ('ROLE_ADMIN');
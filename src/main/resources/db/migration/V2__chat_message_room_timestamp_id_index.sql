@@ -0,0 +1,13 @@
+-- Pages of a room are read in (timestamp, id) order starting after a (timestamp, id) position.
+-- Naming id in the index lets the whole keyset condition and the ORDER BY be resolved from the index,
+-- so a page reads only its own rows. The (room_id, timestamp) index is a prefix of it and is dropped.
+
+-- Databases baselined from the Hibernate-created schema have no room_id before messages were grouped by room,
+-- and generate ids with AUTO_INCREMENT where the application now assigns them.
+ALTER TABLE chat_message ADD COLUMN IF NOT EXISTS room_id VARCHAR(50) NOT NULL DEFAULT 'general' AFTER id;
+
+ALTER TABLE chat_message MODIFY id BIGINT NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_chat_message_room_timestamp_id ON chat_message (room_id, timestamp, id);
+
+DROP INDEX IF EXISTS idx_chat_message_room_timestamp ON chat_message;
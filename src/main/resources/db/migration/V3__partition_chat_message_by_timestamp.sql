@@ -0,0 +1,13 @@
+-- Partitions chat_message by RANGE on timestamp, so expired history is removed by dropping a partition
+-- instead of a long DELETE, and reads bounded by timestamp only touch the partitions they need.
+-- Every unique key of a partitioned table must contain the partition column, hence the (id, timestamp) key.
+-- All rows start in the catch-all pmax partition; ChatMessagePartitionManager splits it into periods.
+
+ALTER TABLE chat_message
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, timestamp);
+
+ALTER TABLE chat_message
+    PARTITION BY RANGE (timestamp) (
+        PARTITION pmax VALUES LESS THAN MAXVALUE
+    );
@@ -0,0 +1,5 @@
+-- Versions user rows. Hibernate bumps the version when the roles of a user change, so a roles-only change
+-- is flushed as an update of the user and evicts the user from the caches like any other change.
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
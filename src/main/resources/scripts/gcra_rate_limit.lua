@@ -0,0 +1,36 @@
+-- Generic Cell Rate Algorithm rate limit, evaluated atomically in a single round trip.
+-- Only the theoretical arrival time (TAT) of the next request is stored. A request is allowed when
+-- the TAT it would push forward stays within the burst tolerance of now.
+--
+-- KEYS[1]  key holding the theoretical arrival time in milliseconds
+-- ARGV[1]  emission interval: milliseconds between two units at the sustained rate
+-- ARGV[2]  burst: number of units that can be taken at once
+-- ARGV[3]  number of units charged for the request
+--
+-- Returns {allowed (1 or 0), remaining units, milliseconds until the request would be allowed}.
+
+local key = KEYS[1]
+local interval = tonumber(ARGV[1])
+local burst = tonumber(ARGV[2])
+local cost = tonumber(ARGV[3]) or 1
+
+-- Use the Redis clock so every node shares the same timeline
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local tolerance = interval * burst
+local tat = tonumber(redis.call('GET', key)) or now
+if tat < now then
+    tat = now
+end
+
+local newTat = tat + interval * cost
+local allowAt = newTat - tolerance
+if now < allowAt then
+    local remaining = math.floor((now - (tat - tolerance)) / interval)
+    return {0, math.max(0, remaining), math.ceil(allowAt - now)}
+end
+
+redis.call('SET', key, newTat, 'PX', math.ceil(newTat - now))
+local remaining = math.floor((now - (newTat - tolerance)) / interval)
+return {1, math.max(0, remaining), 0}
@@ -0,0 +1,49 @@
+-- Sliding window counter rate limit, evaluated atomically in a single round trip.
+-- The count of the previous window is weighted by how much of it still overlaps the sliding window.
+--
+-- KEYS[1]  hash holding the index of the current window and the counts of the current and previous windows
+-- ARGV[1]  maximum number of units per window
+-- ARGV[2]  window length in milliseconds
+-- ARGV[3]  number of units charged for the request
+--
+-- Returns {allowed (1 or 0), remaining units, estimated milliseconds until the request would be allowed}.
+
+local key = KEYS[1]
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local cost = tonumber(ARGV[3]) or 1
+
+-- Use the Redis clock so every node shares the same windows
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local index = math.floor(now / window)
+
+local state = redis.call('HMGET', key, 'window', 'current', 'previous')
+local stored = tonumber(state[1]) or index
+local current = tonumber(state[2]) or 0
+local previous = tonumber(state[3]) or 0
+
+if stored == index - 1 then
+    previous = current
+    current = 0
+elseif stored < index - 1 then
+    previous = 0
+    current = 0
+end
+
+local elapsed = now - index * window
+local estimate = previous * (window - elapsed) / window + current
+
+if estimate + cost > limit then
+    -- Time for the weight of the previous window to decay enough, or for the next window if the current one is full
+    local retryAfter = window - elapsed
+    if current + cost <= limit and previous > 0 then
+        retryAfter = (estimate + cost - limit) * window / previous
+    end
+    return {0, 0, math.ceil(retryAfter)}
+end
+
+current = current + cost
+redis.call('HSET', key, 'window', index, 'current', current, 'previous', previous)
+redis.call('PEXPIRE', key, window * 2)
+return {1, math.floor(limit - estimate - cost), 0}
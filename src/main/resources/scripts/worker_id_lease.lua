@@ -0,0 +1,24 @@
+-- Takes or renews the lease of a worker id, evaluated atomically in a single round trip.
+-- A free worker id is taken, a worker id held by the caller has its lease extended, and a worker id
+-- held by another node is left alone.
+--
+-- KEYS[1]  key of the worker id lease
+-- ARGV[1]  id of the node taking the lease
+-- ARGV[2]  duration of the lease in milliseconds
+--
+-- Returns 1 if the caller holds the lease, 0 if another node does.
+
+local key = KEYS[1]
+local owner = ARGV[1]
+local ttl = tonumber(ARGV[2])
+
+local current = redis.call('GET', key)
+if current == owner then
+    redis.call('PEXPIRE', key, ttl)
+    return 1
+end
+if not current then
+    redis.call('SET', key, owner, 'PX', ttl)
+    return 1
+end
+return 0
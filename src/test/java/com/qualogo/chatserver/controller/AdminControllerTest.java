@@ -0,0 +1,83 @@
+package com.qualogo.chatserver.controller;
+
+import com.qualogo.chatserver.controllers.AdminController;
+import com.qualogo.chatserver.service.ExportFormat;
+import com.qualogo.chatserver.service.MessageExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class AdminControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private MessageExportService messageExportService;
+
+    @InjectMocks
+    private AdminController adminController;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(adminController).build();
+    }
+
+    @Test
+    public void testExportMessagesStreamsTheExport() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("id,roomId,username,message,timestamp\r\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        }).when(messageExportService).export(eq("general"), eq(ExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/admin/rooms/general/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"general.csv\""))
+                .andExpect(content().string("id,roomId,username,message,timestamp\r\n"));
+        verify(messageExportService).export(eq("general"), eq(ExportFormat.CSV), any(OutputStream.class));
+    }
+
+    @Test
+    public void testExportMessagesDefaultsToNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/admin/rooms/general/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"general.ndjson\""));
+        verify(messageExportService).export(eq("general"), eq(ExportFormat.NDJSON), any(OutputStream.class));
+    }
+
+    @Test
+    public void testExportMessagesRejectsUnknownFormatAndInvalidRoom() throws Exception {
+        mockMvc.perform(get("/api/admin/rooms/general/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/rooms/no room/export"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(messageExportService);
+    }
+}
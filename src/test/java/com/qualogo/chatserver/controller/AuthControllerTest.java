@@ -11,6 +11,7 @@ import com.qualogo.chatserver.payload.response.MessageResponse;
 import com.qualogo.chatserver.repository.RoleRepository;
 import com.qualogo.chatserver.repository.UserRepository;
 import com.qualogo.chatserver.security.jwt.JwtUtils;
+import com.qualogo.chatserver.security.services.PasswordHashingExecutor;
 import com.qualogo.chatserver.security.services.UserDetailsImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +19,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -26,9 +29,14 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,6 +57,9 @@ public class AuthControllerTest {
     @Mock
     JwtUtils jwtUtils;
 
+    @Mock
+    PasswordHashingExecutor passwordHashingExecutor;
+
     @InjectMocks
     AuthController authController;
 
@@ -57,7 +68,17 @@ public class AuthControllerTest {
 
     @BeforeEach
     public void setUp() {
-        // Setup common mock behavior here if needed
+        // Run the offloaded work on the calling thread
+        lenient().when(passwordHashingExecutor.submit(anyString(), any())).thenAnswer(invocation ->
+                CompletableFuture.supplyAsync((Supplier<?>) invocation.getArgument(1), Runnable::run));
+    }
+
+    private static ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> response) {
+        try {
+            return response.join();
+        } catch (CompletionException ex) {
+            throw (RuntimeException) ex.getCause();
+        }
     }
 
     @Test
@@ -76,7 +97,7 @@ public class AuthControllerTest {
         when(userDetails.getEmail()).thenReturn("user@example.com");
         when(userDetails.getAuthorities()).thenReturn(Collections.emptyList());
 
-        ResponseEntity<?> response = authController.authenticateUser(loginRequest);
+        ResponseEntity<?> response = await(authController.authenticateUser(loginRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof JwtResponse);
@@ -93,7 +114,7 @@ public class AuthControllerTest {
                 .thenThrow(new RuntimeException("Bad credentials"));
 
         assertThrows(RuntimeException.class, () -> {
-            authController.authenticateUser(loginRequest);
+            await(authController.authenticateUser(loginRequest));
         });
     }
 
@@ -110,7 +131,7 @@ public class AuthControllerTest {
         when(roleRepository.findByName(ERole.ROLE_USER)).thenReturn(Optional.of(new Role(ERole.ROLE_USER)));
         when(encoder.encode(signupRequest.getPassword())).thenReturn("encodedPassword");
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -127,7 +148,7 @@ public class AuthControllerTest {
 
         when(userRepository.existsByUsername(signupRequest.getUsername())).thenReturn(true);
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -144,7 +165,7 @@ public class AuthControllerTest {
 
         when(userRepository.existsByEmail(signupRequest.getEmail())).thenReturn(true);
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -165,7 +186,7 @@ public class AuthControllerTest {
         when(roleRepository.findByName(ERole.ROLE_ADMIN)).thenReturn(Optional.empty());
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            authController.registerUser(signupRequest);
+            await(authController.registerUser(signupRequest));
         });
 
         assertEquals("Error: Role is not found.", exception.getMessage());
@@ -184,7 +205,7 @@ public class AuthControllerTest {
         when(roleRepository.findByName(ERole.ROLE_USER)).thenReturn(Optional.of(new Role(ERole.ROLE_USER)));
         when(encoder.encode(signupRequest.getPassword())).thenReturn("encodedPassword");
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -205,7 +226,7 @@ public class AuthControllerTest {
         when(roleRepository.findByName(ERole.ROLE_USER)).thenReturn(Optional.of(new Role(ERole.ROLE_USER)));
         when(encoder.encode(signupRequest.getPassword())).thenReturn("encodedPassword");
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -225,7 +246,7 @@ public class AuthControllerTest {
         when(userRepository.existsByEmail(signupRequest.getEmail())).thenReturn(false);
         when(encoder.encode(signupRequest.getPassword())).thenReturn("encodedPassword");
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -247,7 +268,7 @@ public class AuthControllerTest {
         when(encoder.encode(signupRequest.getPassword())).thenReturn("encodedPassword");
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            authController.registerUser(signupRequest);
+            await(authController.registerUser(signupRequest));
         });
 
         assertEquals("Error: Role is not found.", exception.getMessage());
@@ -262,7 +283,7 @@ public class AuthControllerTest {
         signupRequest.setPassword("password");
         signupRequest.setRole(Collections.singleton("user"));
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -278,7 +299,7 @@ public class AuthControllerTest {
         signupRequest.setPassword("password");
         signupRequest.setRole(Collections.singleton("user"));
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -294,7 +315,7 @@ public class AuthControllerTest {
         signupRequest.setPassword(null);
         signupRequest.setRole(Collections.singleton("user"));
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -310,7 +331,7 @@ public class AuthControllerTest {
         signupRequest.setPassword("password");
         signupRequest.setRole(Collections.singleton("user"));
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -326,7 +347,7 @@ public class AuthControllerTest {
         signupRequest.setPassword("password");
         signupRequest.setRole(Collections.singleton("user"));
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -342,7 +363,7 @@ public class AuthControllerTest {
         signupRequest.setPassword("");
         signupRequest.setRole(Collections.singleton("user"));
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = await(authController.registerUser(signupRequest));
 
         assertNotNull(response);
         assertTrue(response.getBody() instanceof MessageResponse);
@@ -350,5 +371,17 @@ public class AuthControllerTest {
         verify(userRepository, never()).save(any(User.class));
     }
 
-    
+    @Test
+    public void testAuthenticateUser_ShedWhenHashingPoolIsSaturated() {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setUsername("user");
+        loginRequest.setPassword("password");
+        doThrow(new RejectedExecutionException("Queue full")).when(passwordHashingExecutor).submit(anyString(), any());
+
+        ResponseEntity<?> response = await(authController.authenticateUser(loginRequest));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verifyNoInteractions(authenticationManager);
+    }
 }
@@ -2,7 +2,10 @@ package com.qualogo.chatserver.controller;
 
 import com.qualogo.chatserver.controllers.ChatController;
 import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
 import com.qualogo.chatserver.service.ChatService;
+import com.qualogo.chatserver.service.ChatStreamService;
+import com.qualogo.chatserver.service.LongPollService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -10,13 +13,17 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,6 +35,12 @@ public class ChatControllerTest {
     @Mock
     private ChatService chatService;
 
+    @Mock
+    private ChatStreamService chatStreamService;
+
+    @Mock
+    private LongPollService longPollService;
+
     @InjectMocks
     private ChatController chatController;
 
@@ -40,7 +53,7 @@ public class ChatControllerTest {
     @Test
     public void testSendMessage() throws Exception {
         String message = "Hello, World!";
-        when(chatService.sendMessage(anyString())).thenReturn("Message sent successfully");
+        when(chatService.sendMessage(anyString(), anyString())).thenReturn("Message sent successfully");
 
         mockMvc.perform(post("/api/chat/send")
                 .param("message", message)
@@ -56,7 +69,7 @@ public class ChatControllerTest {
                 new ChatMessage(1L, "User1", "Hello", timestamp),
                 new ChatMessage(2L, "User2", "Hi", timestamp + 1000)
         );
-        when(chatService.getMessagesSince(anyLong())).thenReturn(messages);
+        when(chatService.getMessages("general", timestamp, null, null)).thenReturn(new MessagePage(messages, null));
 
         mockMvc.perform(get("/api/chat/receive")
                 .param("timestamp", String.valueOf(timestamp))
@@ -67,7 +80,21 @@ public class ChatControllerTest {
                 .andExpect(jsonPath("$[0].message").value("Hello"))
                 .andExpect(jsonPath("$[1].id").value(2L))
                 .andExpect(jsonPath("$[1].username").value("User2"))
-                .andExpect(jsonPath("$[1].message").value("Hi"));
+                .andExpect(jsonPath("$[1].message").value("Hi"))
+                .andExpect(header().doesNotExist(ChatController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testReceiveMessagesWithCursor() throws Exception {
+        List<ChatMessage> messages = Arrays.asList(new ChatMessage(3L, "User1", "Hello", 1620000000000L));
+        when(chatService.getMessages("general", null, "MTA6Mg", 1)).thenReturn(new MessagePage(messages, "MTA6Mw"));
+
+        mockMvc.perform(get("/api/chat/receive")
+                .param("cursor", "MTA6Mg")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ChatController.NEXT_CURSOR_HEADER, "MTA6Mw"))
+                .andExpect(jsonPath("$[0].id").value(3L));
     }
 
     @Test
@@ -81,4 +108,35 @@ public class ChatControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Message deleted successfully"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWaitForMessages() throws Exception {
+        long timestamp = 1620000000000L;
+        DeferredResult<List<ChatMessage>> deferredResult = new DeferredResult<>();
+        deferredResult.setResult(Arrays.asList(new ChatMessage(1L, "User1", "Hello", timestamp)));
+        when(longPollService.waitForMessagesSince("general", timestamp)).thenReturn(deferredResult);
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/chat/receive")
+                .param("timestamp", String.valueOf(timestamp))
+                .param("wait", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].message").value("Hello"));
+    }
+
+    @Test
+    public void testStreamMessages() throws Exception {
+        when(chatStreamService.subscribe("general", 5L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/chat/stream")
+                .header("Last-Event-ID", "5")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(chatStreamService).subscribe("general", 5L);
+    }
+}
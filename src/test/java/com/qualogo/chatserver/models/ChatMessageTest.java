@@ -38,4 +38,27 @@ public class ChatMessageTest {
         ChatMessage chatMessage = new ChatMessage(expectedId, "username", "message", System.currentTimeMillis());
         assertEquals(expectedId, chatMessage.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testChatMessageRoomIdIsSetByConstructor() {
+        ChatMessage chatMessage = new ChatMessage("general", "username", "message");
+        assertEquals("general", chatMessage.getRoomId());
+        assertEquals("username", chatMessage.getUsername());
+        assertEquals("message", chatMessage.getMessage());
+    }
+
+    @Test
+    public void testChatMessageRoomIdIsSetAndRetrievedCorrectly() {
+        ChatMessage chatMessage = new ChatMessage();
+        chatMessage.setRoomId("random");
+        assertEquals("random", chatMessage.getRoomId());
+    }
+
+    @Test
+    public void testChatMessageWithGeneratedIdKeepsRoomAndTimestamp() {
+        ChatMessage chatMessage = new ChatMessage(379014237327982592L, "room-1", "username", "message", 1794432000000L);
+        assertEquals(379014237327982592L, chatMessage.getId());
+        assertEquals("room-1", chatMessage.getRoomId());
+        assertEquals(1794432000000L, chatMessage.getTimestamp());
+    }
+}
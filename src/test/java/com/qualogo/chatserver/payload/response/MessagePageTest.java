@@ -0,0 +1,31 @@
+package com.qualogo.chatserver.payload.response;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+public class MessagePageTest {
+
+    @Test
+    public void testConstructorAndGetters() {
+        List<ChatMessage> messages = Arrays.asList(new ChatMessage(1L, "testUser", "Hello", 123456789L));
+        MessagePage page = new MessagePage(messages, "cursor");
+
+        assertEquals(messages, page.getMessages());
+        assertEquals("cursor", page.getNextCursor());
+    }
+
+    @Test
+    public void testSetters() {
+        MessagePage page = new MessagePage(Collections.emptyList(), "cursor");
+        List<ChatMessage> messages = Arrays.asList(new ChatMessage(1L, "testUser", "Hello", 123456789L));
+        page.setMessages(messages);
+        page.setNextCursor(null);
+
+        assertEquals(messages, page.getMessages());
+        assertNull(page.getNextCursor());
+    }
+}
@@ -0,0 +1,32 @@
+package com.qualogo.chatserver.repository;
+
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+public class ChatMessageRepositoryCustomImplTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private ChatMessageRepositoryCustomImpl chatMessageRepositoryCustom;
+
+    @Test
+    public void testInsertPersistsWithoutMerge() {
+        ChatMessage message = new ChatMessage(379014237327982592L, "general", "username", "message", 1794432000000L);
+
+        chatMessageRepositoryCustom.insert(message);
+
+        verify(entityManager).persist(message);
+    }
+}
@@ -0,0 +1,166 @@
+package com.qualogo.chatserver.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.qualogo.chatserver.security.jwt.JwtUtils;
+import com.qualogo.chatserver.security.jwt.VerifiedTokenCache;
+import com.qualogo.chatserver.service.RateLimitDecision;
+import com.qualogo.chatserver.service.RateLimitOperation;
+import com.qualogo.chatserver.service.RateLimitingService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+@ExtendWith(MockitoExtension.class)
+public class RateLimitFilterTest {
+
+    @Mock
+    private RateLimitingService rateLimitingService;
+
+    @Mock
+    private FilterChain filterChain;
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @InjectMocks
+    private RateLimitFilter rateLimitFilter;
+
+    private static Claims claims(String subject) {
+        return Jwts.claims().setSubject(subject);
+    }
+
+    @Test
+    public void testAllowedRequestCarriesRemainingHeader() throws ServletException, IOException {
+        when(rateLimitingService.check("testUser", RateLimitOperation.SEND)).thenReturn(new RateLimitDecision(true, 4, 0));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/chat/send");
+        request.addHeader("Authorization", "Bearer cachedToken");
+        when(verifiedTokenCache.getClaims("cachedToken")).thenReturn(claims("testUser"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        rateLimitFilter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        assertEquals("4", response.getHeader(RateLimitFilter.REMAINING_HEADER));
+        assertNull(response.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void testDeniedRequestIsRejectedWithRetryAfter() throws ServletException, IOException {
+        when(rateLimitingService.check("ip:10.0.0.1", RateLimitOperation.RECEIVE))
+                .thenReturn(new RateLimitDecision(false, 0, 1200));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/chat/receive");
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        rateLimitFilter.doFilterInternal(request, response, filterChain);
+
+        verifyNoInteractions(filterChain);
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals("0", response.getHeader(RateLimitFilter.REMAINING_HEADER));
+        assertTrue(response.getContentAsString().contains("Too Many Requests"));
+    }
+
+    @Test
+    public void testRequestOutsideChatIsNotLimited() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/signin");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        rateLimitFilter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(rateLimitingService);
+    }
+
+    @Test
+    public void testRequestIsLetThroughWhenRedisIsUnavailable() throws ServletException, IOException {
+        when(rateLimitingService.check(anyString(), eq(RateLimitOperation.DELETE)))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+        MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/api/chat/deleteMsg");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        rateLimitFilter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void testResolveSubject() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/chat/receive");
+        request.setRemoteAddr("10.0.0.1");
+        assertEquals("ip:10.0.0.1", rateLimitFilter.resolveSubject(request));
+
+        request.addHeader("Authorization", "Basic dXNlcjpwYXNz");
+        assertEquals("ip:10.0.0.1", rateLimitFilter.resolveSubject(request));
+
+        MockHttpServletRequest withoutSubject = new MockHttpServletRequest("GET", "/api/chat/receive");
+        withoutSubject.setRemoteAddr("10.0.0.1");
+        withoutSubject.addHeader("Authorization", "Bearer anonymousToken");
+        when(jwtUtils.parseClaims("anonymousToken")).thenReturn(Jwts.claims());
+        assertEquals("ip:10.0.0.1", rateLimitFilter.resolveSubject(withoutSubject));
+
+        MockHttpServletRequest withSubject = new MockHttpServletRequest("GET", "/api/chat/receive");
+        withSubject.addHeader("Authorization", "Bearer validToken");
+        Claims claims = claims("testUser");
+        when(jwtUtils.parseClaims("validToken")).thenReturn(claims);
+        assertEquals("testUser", rateLimitFilter.resolveSubject(withSubject));
+        verify(verifiedTokenCache).put("validToken", claims);
+    }
+
+    @Test
+    public void testForgedTokenIsChargedToTheClientAddress() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/chat/receive");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("Authorization", "Bearer forgedToken");
+        when(jwtUtils.parseClaims("forgedToken")).thenReturn(null);
+
+        assertEquals("ip:10.0.0.1", rateLimitFilter.resolveSubject(request));
+        verify(verifiedTokenCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    public void testCachedTokenIsNotVerifiedAgain() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/chat/receive");
+        request.addHeader("Authorization", "Bearer cachedToken");
+        when(verifiedTokenCache.getClaims("cachedToken")).thenReturn(claims("testUser"));
+
+        assertEquals("testUser", rateLimitFilter.resolveSubject(request));
+        verifyNoInteractions(jwtUtils);
+    }
+
+    @Test
+    public void testResolveOperation() {
+        assertEquals(RateLimitOperation.JOIN, rateLimitFilter.resolveOperation(new MockHttpServletRequest("POST", "/api/chat/joinRoom")));
+        assertEquals(RateLimitOperation.RECEIVE, rateLimitFilter.resolveOperation(new MockHttpServletRequest("GET", "/api/chat/stream")));
+        assertNull(rateLimitFilter.resolveOperation(new MockHttpServletRequest("GET", "/swagger-ui/index.html")));
+    }
+
+    @Test
+    public void testResolveOperationOfDisguisedPath() {
+        assertEquals(RateLimitOperation.SEND, rateLimitFilter.resolveOperation(new MockHttpServletRequest("POST", "/api/chat/%73end")));
+        assertEquals(RateLimitOperation.SEND, rateLimitFilter.resolveOperation(new MockHttpServletRequest("POST", "/api/chat/send;x=1")));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/chat/api/chat/%64eleteMsg");
+        request.setContextPath("/chat");
+        assertEquals(RateLimitOperation.DELETE, rateLimitFilter.resolveOperation(request));
+    }
+}
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -43,6 +45,14 @@ public class WebSecurityConfigTest {
         assertNotNull(authTokenFilter);
     }
 
+    @Test
+    public void testRateLimitFilterRunsBeforeSecurityChain() {
+        FilterRegistrationBean<RateLimitFilter> registration = webSecurityConfig.rateLimitFilterRegistration();
+        assertNotNull(registration.getFilter());
+        assertTrue(registration.getOrder() < SecurityProperties.DEFAULT_FILTER_ORDER);
+        assertTrue(registration.getUrlPatterns().contains("/api/chat/*"));
+    }
+
     @Test
     public void testAuthenticationProvider() {
         DaoAuthenticationProvider authProvider = webSecurityConfig.authenticationProvider();
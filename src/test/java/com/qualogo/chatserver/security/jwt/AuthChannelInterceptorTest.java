@@ -0,0 +1,115 @@
+package com.qualogo.chatserver.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.qualogo.chatserver.security.services.UserDetailsServiceImpl;
+
+import io.jsonwebtoken.Jwts;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthChannelInterceptorTest {
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private MessageChannel channel;
+
+    @InjectMocks
+    private AuthChannelInterceptor authChannelInterceptor;
+
+    private Message<byte[]> stompMessage(StompCommand command, String authorization) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        if (authorization != null) {
+            accessor.setNativeHeader("Authorization", authorization);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    public void testPreSend_ConnectWithValidToken() {
+        UserDetails userDetails = mock(UserDetails.class);
+        when(jwtUtils.parseClaims("valid.jwt.token")).thenReturn(Jwts.claims().setSubject("validUser"));
+        when(userDetailsService.loadUserByUsername("validUser")).thenReturn(userDetails);
+        when(userDetails.getAuthorities()).thenReturn(Collections.emptyList());
+
+        Message<?> message = authChannelInterceptor.preSend(stompMessage(StompCommand.CONNECT, "Bearer valid.jwt.token"), channel);
+
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        assertNotNull(accessor.getUser());
+    }
+
+    @Test
+    public void testPreSend_ConnectWithInvalidToken() {
+        when(jwtUtils.parseClaims("invalid.jwt.token")).thenReturn(null);
+
+        assertThrows(BadCredentialsException.class,
+                () -> authChannelInterceptor.preSend(stompMessage(StompCommand.CONNECT, "Bearer invalid.jwt.token"), channel));
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    public void testPreSend_ConnectWithoutToken() {
+        assertThrows(BadCredentialsException.class,
+                () -> authChannelInterceptor.preSend(stompMessage(StompCommand.CONNECT, null), channel));
+        verify(jwtUtils, never()).parseClaims(anyString());
+    }
+
+    @Test
+    public void testPreSend_SubscribeWithoutAuthenticatedSession() {
+        assertThrows(BadCredentialsException.class,
+                () -> authChannelInterceptor.preSend(stompMessage(StompCommand.SUBSCRIBE, null), channel));
+    }
+
+    @Test
+    public void testPreSend_SendToTopicIsRefused() {
+        Message<byte[]> message = sendMessage("/topic/chatRoom/general");
+
+        assertThrows(AccessDeniedException.class, () -> authChannelInterceptor.preSend(message, channel));
+    }
+
+    @Test
+    public void testPreSend_SendToApplicationDestinationIsPassedThrough() {
+        Message<byte[]> message = sendMessage("/app/chatRoom/general");
+
+        assertSame(message, authChannelInterceptor.preSend(message, channel));
+    }
+
+    private Message<byte[]> sendMessage(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination(destination);
+        accessor.setUser(new UsernamePasswordAuthenticationToken("user", null, Collections.emptyList()));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    public void testPreSend_DisconnectIsPassedThrough() {
+        Message<byte[]> message = stompMessage(StompCommand.DISCONNECT, null);
+
+        assertSame(message, authChannelInterceptor.preSend(message, channel));
+    }
+}
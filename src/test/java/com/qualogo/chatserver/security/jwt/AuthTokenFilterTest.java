@@ -2,6 +2,7 @@ package com.qualogo.chatserver.security.jwt;
 
 import com.qualogo.chatserver.security.jwt.AuthTokenFilter;
 import com.qualogo.chatserver.security.jwt.JwtUtils;
+import com.qualogo.chatserver.security.services.UserDetailsImpl;
 import com.qualogo.chatserver.security.services.UserDetailsServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -44,6 +48,9 @@ public class AuthTokenFilterTest {
     @Mock
     private FilterChain filterChain;
 
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
     @InjectMocks
     private AuthTokenFilter authTokenFilter;
 
@@ -59,8 +66,7 @@ public class AuthTokenFilterTest {
         UserDetails userDetails = mock(UserDetails.class);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
         when(userDetails.getAuthorities()).thenReturn(null);
 
@@ -72,12 +78,60 @@ public class AuthTokenFilterTest {
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
+    @Test
+    public void testDoFilterInternal_VerifiedTokenIsCached() throws ServletException, IOException {
+        String jwt = "valid.jwt.token";
+        UserDetails userDetails = mock(UserDetails.class);
+        Claims claims = Jwts.claims().setSubject("validUser");
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(claims);
+        when(userDetailsService.loadUserByUsername("validUser")).thenReturn(userDetails);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(verifiedTokenCache).put(jwt, claims);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    public void testDoFilterInternal_CachedTokenSkipsVerification() throws ServletException, IOException {
+        String jwt = "valid.jwt.token";
+        UserDetails userDetails = mock(UserDetails.class);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(verifiedTokenCache.getClaims(jwt)).thenReturn(Jwts.claims().setSubject("validUser"));
+        when(userDetailsService.loadUserByUsername("validUser")).thenReturn(userDetails);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(jwtUtils, never()).parseClaims(anyString());
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    public void testDoFilterInternal_StatelessPrincipalSkipsUserLookup() throws ServletException, IOException {
+        String jwt = "valid.jwt.token";
+        Claims claims = Jwts.claims().setSubject("validUser");
+        UserDetailsImpl userDetails = new UserDetailsImpl(1L, "validUser", null, null, Collections.emptyList());
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(claims);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(userDetails);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
     @Test
     public void testDoFilterInternal_InvalidJwtToken() throws ServletException, IOException {
         String jwt = "invalid.jwt.token";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(false);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(null);
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
@@ -113,8 +167,7 @@ public class AuthTokenFilterTest {
         String username = "nonExistentUser";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenThrow(new UsernameNotFoundException("User not found"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
@@ -129,8 +182,7 @@ public class AuthTokenFilterTest {
         String username = "validUser";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenThrow(new RuntimeException("Unexpected error"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
@@ -172,8 +224,7 @@ public class AuthTokenFilterTest {
         UserDetails userDetails = mock(UserDetails.class);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
         when(userDetails.getAuthorities()).thenReturn(Collections.emptyList());
 
@@ -192,8 +243,7 @@ public class AuthTokenFilterTest {
         UserDetails userDetails = mock(UserDetails.class);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
         when(userDetails.getAuthorities()).thenReturn(null);
 
@@ -212,8 +262,7 @@ public class AuthTokenFilterTest {
         UserDetails userDetails = mock(UserDetails.class);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
         when(userDetails.getAuthorities()).thenReturn(Collections.emptyList());
 
@@ -231,8 +280,7 @@ public class AuthTokenFilterTest {
         String username = "validUser";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenReturn(null);
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
@@ -247,8 +295,7 @@ public class AuthTokenFilterTest {
         String username = "inactiveUser";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenThrow(new UsernameNotFoundException("User not found"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
@@ -264,8 +311,7 @@ public class AuthTokenFilterTest {
         UserDetails userDetails = mock(UserDetails.class);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
         when(userDetails.getAuthorities()).thenReturn(null);
 
@@ -283,8 +329,7 @@ public class AuthTokenFilterTest {
         String username = "inactiveUser";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenThrow(new RuntimeException("Unexpected error"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
@@ -300,8 +345,7 @@ public class AuthTokenFilterTest {
         UserDetails userDetails = mock(UserDetails.class);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenThrow(new RuntimeException("Unexpected error"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
@@ -316,8 +360,7 @@ public class AuthTokenFilterTest {
         String username = "validUser";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + jwt);
-        when(jwtUtils.validateJwtToken(jwt)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(jwt)).thenReturn(username);
+        when(jwtUtils.parseClaims(jwt)).thenReturn(Jwts.claims().setSubject(username));
         when(userDetailsService.loadUserByUsername(username)).thenThrow(new RuntimeException("Unexpected error"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -12,7 +13,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import com.qualogo.chatserver.security.services.UserDetailsImpl;
 
@@ -48,6 +51,57 @@ public class JwtUtilsTest {
         assertEquals("testUser", jwtUtils.getUserNameFromJwtToken(token));
     }
 
+    @Test
+    public void testParseClaims() {
+        String token = generateTestToken("testUser");
+
+        Claims claims = jwtUtils.parseClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("testUser", claims.getSubject());
+        assertNull(jwtUtils.parseClaims("invalid.jwt.token"));
+    }
+
+    @Test
+    public void testGenerateJwtTokenWithStatelessPrincipal() {
+        jwtUtils.setStatelessPrincipal(true);
+        UserDetailsImpl principal = new UserDetailsImpl(42L, "testUser", "test@example.com", "secret",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+        Authentication signedIn = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+
+        Claims claims = jwtUtils.parseClaims(jwtUtils.generateJwtToken(signedIn));
+        UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+
+        assertNotNull(userDetails);
+        assertEquals(42L, userDetails.getId());
+        assertEquals("testUser", userDetails.getUsername());
+        assertEquals("ROLE_USER", userDetails.getAuthorities().iterator().next().getAuthority());
+        assertNull(userDetails.getPassword());
+        assertNull(claims.get("email"));
+    }
+
+    @Test
+    public void testStatelessPrincipalDisabled() {
+        Claims claims = jwtUtils.parseClaims(generateTestToken("testUser"));
+
+        assertNull(jwtUtils.getUserDetailsFromClaims(claims));
+        jwtUtils.setStatelessPrincipal(true);
+        // Tokens issued without the principal claims still need a user lookup
+        assertNull(jwtUtils.getUserDetailsFromClaims(claims));
+    }
+
+    @Test
+    public void testKeyIsReusedUntilSecretChanges() {
+        Key key = jwtUtils.key();
+        assertSame(key, jwtUtils.key());
+
+        String token = generateTestToken("testUser");
+        jwtUtils.setJwtSecret("otherSecretKey1234567890123456789012345678901");
+
+        assertNotSame(key, jwtUtils.key());
+        assertNull(jwtUtils.parseClaims(token));
+    }
+
     @Test
     public void testGetUserNameFromJwtToken() {
         String token = generateTestToken("testUser");
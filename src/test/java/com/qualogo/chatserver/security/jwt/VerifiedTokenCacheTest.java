@@ -0,0 +1,65 @@
+package com.qualogo.chatserver.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    public void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 2L);
+        verifiedTokenCache.init();
+    }
+
+    private static Claims claims(String subject, long expiresInMs) {
+        return Jwts.claims().setSubject(subject).setExpiration(new Date(System.currentTimeMillis() + expiresInMs));
+    }
+
+    @Test
+    public void testVerifiedTokenIsRemembered() {
+        assertNull(verifiedTokenCache.getClaims("token1"));
+
+        verifiedTokenCache.put("token1", claims("testUser", 60000));
+
+        assertEquals("testUser", verifiedTokenCache.getClaims("token1").getSubject());
+        assertNull(verifiedTokenCache.getClaims("token2"));
+    }
+
+    @Test
+    public void testExpiredTokenIsNotReturned() throws InterruptedException {
+        verifiedTokenCache.put("token1", claims("testUser", 20));
+
+        Thread.sleep(50);
+
+        assertNull(verifiedTokenCache.getClaims("token1"));
+    }
+
+    @Test
+    public void testTokenWithoutExpiryIsNotCached() {
+        verifiedTokenCache.put("token1", Jwts.claims().setSubject("testUser"));
+
+        assertNull(verifiedTokenCache.getClaims("token1"));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        for (int i = 0; i < 10; i++) {
+            verifiedTokenCache.put("token" + i, claims("user" + i, 60000));
+        }
+
+        assertTrue(verifiedTokenCache.size() <= 2);
+    }
+}
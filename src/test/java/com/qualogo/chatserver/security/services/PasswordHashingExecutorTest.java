@@ -0,0 +1,73 @@
+package com.qualogo.chatserver.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashingExecutor = new PasswordHashingExecutor();
+        ReflectionTestUtils.setField(passwordHashingExecutor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(passwordHashingExecutor, "poolSize", 1);
+        ReflectionTestUtils.setField(passwordHashingExecutor, "queueCapacity", 1);
+        passwordHashingExecutor.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordHashingExecutor.shutdown();
+    }
+
+    @Test
+    public void testSubmitRecordsWaitAndDuration() {
+        CompletableFuture<String> result = passwordHashingExecutor.submit("signin", () -> "hashed");
+
+        assertEquals("hashed", result.join());
+        assertEquals(1, meterRegistry.get("auth.hashing.wait").timer().count());
+        assertEquals(1, meterRegistry.get("auth.hashing.duration").tag("operation", "signin").timer().count());
+        assertNotNull(meterRegistry.find("executor.queued").tag("name", "passwordHashing").gauge());
+    }
+
+    @Test
+    public void testSubmitRejectsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = passwordHashingExecutor.submit("signin", () -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = passwordHashingExecutor.submit("signup", () -> "queued");
+        assertEquals(1, passwordHashingExecutor.getQueueDepth());
+
+        assertThrows(RejectedExecutionException.class, () -> passwordHashingExecutor.submit("signup", () -> "rejected"));
+
+        release.countDown();
+        assertEquals(true, running.join());
+        assertEquals("queued", queued.join());
+    }
+}
@@ -0,0 +1,93 @@
+package com.qualogo.chatserver.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.mapping.PersistentClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.qualogo.chatserver.models.Role;
+import com.qualogo.chatserver.models.User;
+
+@ExtendWith(MockitoExtension.class)
+public class UserChangeListenerTest {
+
+    @Mock
+    private ObjectProvider<UserDetailsServiceImpl> userDetailsServiceProvider;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @InjectMocks
+    private UserChangeListener userChangeListener;
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testUserChangedOutsideTransactionIsEvictedAtOnce() {
+        when(userDetailsServiceProvider.getIfAvailable()).thenReturn(userDetailsService);
+        User user = new User();
+        user.setUsername("testuser");
+
+        userChangeListener.onUserChanged(user);
+
+        verify(userDetailsService).invalidate("testuser");
+    }
+
+    @Test
+    public void testUserChangedInTransactionIsEvictedAfterCommit() {
+        when(userDetailsServiceProvider.getIfAvailable()).thenReturn(userDetailsService);
+        TransactionSynchronizationManager.initSynchronization();
+        User user = new User();
+        user.setUsername("testuser");
+
+        userChangeListener.onUserChanged(user);
+        verify(userDetailsService, never()).invalidate("testuser");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(userDetailsService).invalidate("testuser");
+    }
+
+    /**
+     * Hibernate only flushes a roles-only change as an update of the user, firing {@code @PostUpdate},
+     * when the user is versioned and its roles collection takes part in optimistic locking.
+     */
+    @Test
+    public void testRoleChangesUpdateTheUser() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.MariaDBDialect")
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .build();
+        try {
+            Metadata metadata = new MetadataSources(registry)
+                    .addAnnotatedClass(User.class)
+                    .addAnnotatedClass(Role.class)
+                    .buildMetadata();
+            PersistentClass user = metadata.getEntityBinding(User.class.getName());
+
+            assertTrue(user.isVersioned());
+            assertTrue(metadata.getCollectionBinding(User.class.getName() + ".roles").isOptimisticLocked());
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+}
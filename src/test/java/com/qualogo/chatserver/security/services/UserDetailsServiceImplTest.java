@@ -1,7 +1,12 @@
 package com.qualogo.chatserver.security.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Optional;
@@ -11,23 +16,39 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.qualogo.chatserver.models.User;
 import com.qualogo.chatserver.repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class UserDetailsServiceImplTest {
 
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
     @InjectMocks
     private UserDetailsServiceImpl userDetailsService;
 
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(userDetailsService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userDetailsService, "maxSize", 100L);
+        ReflectionTestUtils.setField(userDetailsService, "ttlSeconds", 60L);
+        userDetailsService.init();
     }
 
     @Test
@@ -81,4 +102,67 @@ public class UserDetailsServiceImplTest {
             userDetailsService.loadUserByUsername("testuser");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadUserByUsername_ServedFromCache() {
+        User user = new User();
+        user.setUsername("testuser");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        UserDetails first = userDetailsService.loadUserByUsername("testuser");
+        UserDetails second = userDetailsService.loadUserByUsername("testuser");
+
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByUsername("testuser");
+        assertEquals(1, userDetailsService.getCachedUserCount());
+    }
+
+    @Test
+    public void testLoadUserByUsername_NotFoundIsNotCached() {
+        when(userRepository.findByUsername("nonexistentuser")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nonexistentuser"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nonexistentuser"));
+
+        verify(userRepository, times(2)).findByUsername("nonexistentuser");
+        assertEquals(0, userDetailsService.getCachedUserCount());
+    }
+
+    @Test
+    public void testInvalidate_EvictsAndPublishes() {
+        User user = new User();
+        user.setUsername("testuser");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        userDetailsService.loadUserByUsername("testuser");
+
+        userDetailsService.invalidate("testuser");
+        userDetailsService.loadUserByUsername("testuser");
+
+        verify(redisTemplate).convertAndSend(UserDetailsServiceImpl.INVALIDATION_CHANNEL, "testuser");
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    @Test
+    public void testInvalidate_RedisUnavailable() {
+        doThrow(new RedisConnectionFailureException("Connection refused"))
+                .when(redisTemplate).convertAndSend(UserDetailsServiceImpl.INVALIDATION_CHANNEL, "testuser");
+
+        userDetailsService.invalidate("testuser");
+
+        assertEquals(0, userDetailsService.getCachedUserCount());
+    }
+
+    @Test
+    public void testOnMessage_EvictsUserChangedOnAnotherNode() {
+        User user = new User();
+        user.setUsername("testuser");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        userDetailsService.loadUserByUsername("testuser");
+
+        userDetailsService.onMessage(new DefaultMessage(UserDetailsServiceImpl.INVALIDATION_CHANNEL.getBytes(),
+                serializer.serialize("testuser")), null);
+
+        assertEquals(0, userDetailsService.getCachedUserCount());
+    }
+}
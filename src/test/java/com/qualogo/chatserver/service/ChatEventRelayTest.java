@@ -0,0 +1,107 @@
+package com.qualogo.chatserver.service;
+
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChatEventRelayTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ChatEventRelay chatEventRelay;
+
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(chatEventRelay, "nodeId", "node-1");
+    }
+
+    @Test
+    public void testLocalMessageIsPublishedToCluster() {
+        ChatMessage message = new ChatMessage(1L, "testUser", "Hello", 123456789L);
+
+        chatEventRelay.onMessageSent(new MessageSentEvent(message));
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq(ChatEventRelay.CHANNEL), captor.capture());
+        ChatEventEnvelope envelope = (ChatEventEnvelope) captor.getValue();
+        assertEquals("node-1", envelope.getNodeId());
+        assertSame(message, envelope.getMessage());
+    }
+
+    @Test
+    public void testRemoteMessageIsNotPublishedAgain() {
+        chatEventRelay.onMessageSent(new MessageSentEvent(new ChatMessage(1L, "testUser", "Hello", 123456789L), true));
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+    }
+
+    @Test
+    public void testMessageFromOtherNodeIsRepublishedLocally() {
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        byte[] body = serializer.serialize(new ChatEventEnvelope("node-2", new ChatMessage(1L, "testUser", "Hello", 123456789L)));
+
+        chatEventRelay.onMessage(new DefaultMessage(ChatEventRelay.CHANNEL.getBytes(), body), null);
+
+        ArgumentCaptor<MessageSentEvent> captor = ArgumentCaptor.forClass(MessageSentEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertTrue(captor.getValue().isRemote());
+        assertEquals("Hello", captor.getValue().getMessage().getMessage());
+    }
+
+    @Test
+    public void testDeletionFromOtherNodeIsRepublishedLocally() {
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        byte[] body = serializer.serialize(new ChatEventEnvelope("node-2", new ChatMessage(1L, "testUser", "Hello", 123456789L), true));
+
+        chatEventRelay.onMessage(new DefaultMessage(ChatEventRelay.CHANNEL.getBytes(), body), null);
+
+        ArgumentCaptor<MessageDeletedEvent> captor = ArgumentCaptor.forClass(MessageDeletedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertTrue(captor.getValue().isRemote());
+        assertEquals(1L, captor.getValue().getMessage().getId());
+    }
+
+    @Test
+    public void testLocalDeletionIsPublishedToCluster() {
+        ChatMessage message = new ChatMessage(1L, "testUser", "Hello", 123456789L);
+
+        chatEventRelay.onMessageDeleted(new MessageDeletedEvent(message));
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq(ChatEventRelay.CHANNEL), captor.capture());
+        assertTrue(((ChatEventEnvelope) captor.getValue()).isDeleted());
+    }
+
+    @Test
+    public void testMessageFromOwnNodeIsIgnored() {
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+        byte[] body = serializer.serialize(new ChatEventEnvelope("node-1", new ChatMessage(1L, "testUser", "Hello", 123456789L)));
+
+        chatEventRelay.onMessage(new DefaultMessage(ChatEventRelay.CHANNEL.getBytes(), body), null);
+
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
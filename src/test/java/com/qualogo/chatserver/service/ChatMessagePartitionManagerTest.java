@@ -0,0 +1,211 @@
+package com.qualogo.chatserver.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.qualogo.chatserver.service.ChatMessagePartitionManager.Partition;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ChatMessagePartitionManagerTest {
+
+    // 2026-10-18T12:00:00Z
+    private static final long NOW = 1792324800000L;
+
+    private static final long DAY = 86400000L;
+
+    // 2026-10-18T00:00:00Z
+    private static final long TODAY = 1792281600000L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ChatService chatService;
+
+    @InjectMocks
+    private ChatMessagePartitionManager partitionManager;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(partitionManager, "enabled", true);
+        ReflectionTestUtils.setField(partitionManager, "periodDays", 1);
+        ReflectionTestUtils.setField(partitionManager, "aheadPeriods", 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenPartitions(Partition... partitions) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(List.of(partitions));
+    }
+
+    /**
+     * Runs the connection callbacks of the template on a connection answering GET_LOCK with the given result.
+     */
+    @SuppressWarnings("unchecked")
+    private Connection givenLock(boolean obtained) throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt(1)).thenReturn(obtained ? 1 : 0);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        return connection;
+    }
+
+    @Test
+    public void testFirstRotationSplitsCatchAllPartition() {
+        givenPartitions(new Partition("pmax", null));
+
+        partitionManager.rotate(NOW);
+
+        verify(jdbcTemplate).execute("ALTER TABLE chat_message REORGANIZE PARTITION pmax INTO ("
+                + "PARTITION p20261018 VALUES LESS THAN (" + (TODAY + DAY) + "), "
+                + "PARTITION p20261019 VALUES LESS THAN (" + (TODAY + 2 * DAY) + "), "
+                + "PARTITION p20261020 VALUES LESS THAN (" + (TODAY + 3 * DAY) + "), "
+                + "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+    }
+
+    @Test
+    public void testRotationOnlyAddsMissingPartitions() {
+        givenPartitions(new Partition("p20261018", TODAY + DAY), new Partition("p20261019", TODAY + 2 * DAY),
+                new Partition("pmax", null));
+
+        partitionManager.rotate(NOW);
+
+        verify(jdbcTemplate).execute("ALTER TABLE chat_message REORGANIZE PARTITION pmax INTO ("
+                + "PARTITION p20261020 VALUES LESS THAN (" + (TODAY + 3 * DAY) + "), "
+                + "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+    }
+
+    @Test
+    public void testExpiredPartitionsAreDropped() {
+        ReflectionTestUtils.setField(partitionManager, "retentionDays", 2);
+        givenPartitions(new Partition("p20261015", TODAY - 2 * DAY), new Partition("p20261016", TODAY - DAY),
+                new Partition("p20261017", TODAY), new Partition("p20261018", TODAY + DAY),
+                new Partition("p20261019", TODAY + 2 * DAY), new Partition("p20261020", TODAY + 3 * DAY),
+                new Partition("pmax", null));
+
+        partitionManager.rotate(NOW);
+
+        InOrder inOrder = inOrder(chatService, jdbcTemplate);
+        inOrder.verify(chatService).trimMessagesBefore(TODAY - 2 * DAY);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE chat_message DROP PARTITION p20261015");
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE chat_message REORGANIZE"));
+    }
+
+    @Test
+    public void testRedisIsNotTrimmedWhenNothingExpired() {
+        ReflectionTestUtils.setField(partitionManager, "retentionDays", 2);
+        givenPartitions(new Partition("p20261017", TODAY), new Partition("p20261018", TODAY + DAY),
+                new Partition("p20261019", TODAY + 2 * DAY), new Partition("p20261020", TODAY + 3 * DAY),
+                new Partition("pmax", null));
+
+        partitionManager.rotate(NOW);
+
+        verifyNoInteractions(chatService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testScheduledRotationRunsOnItsOwnThread() throws Exception {
+        ReflectionTestUtils.setField(partitionManager, "meterRegistry", new SimpleMeterRegistry());
+        partitionManager.init();
+        CompletableFuture<String> rotationThread = new CompletableFuture<>();
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation -> {
+            rotationThread.complete(Thread.currentThread().getName());
+            return true;
+        });
+
+        try {
+            partitionManager.scheduleRotation();
+
+            assertEquals("partition-rotation", rotationThread.get(5, TimeUnit.SECONDS));
+        } finally {
+            partitionManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnpartitionedTableIsLeftAlone() {
+        givenPartitions();
+
+        partitionManager.rotate(NOW);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDatabaseErrorIsLogged() throws SQLException {
+        givenLock(true);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenThrow(new DataAccessResourceFailureException("Database down"));
+
+        partitionManager.rotate();
+    }
+
+    @Test
+    public void testRotateDoesNothingWhenDisabled() {
+        ReflectionTestUtils.setField(partitionManager, "enabled", false);
+
+        partitionManager.rotate();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void testRotationRunsUnderTheDatabaseLock() throws SQLException {
+        Connection connection = givenLock(true);
+        givenPartitions(new Partition("pmax", null));
+
+        partitionManager.rotate();
+
+        verify(connection).prepareStatement("SELECT GET_LOCK(?, 0)");
+        verify(jdbcTemplate).execute(startsWith("ALTER TABLE chat_message REORGANIZE PARTITION pmax"));
+        verify(connection).prepareStatement("SELECT RELEASE_LOCK(?)");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRotationIsSkippedWhenAnotherNodeHoldsTheLock() throws SQLException {
+        Connection connection = givenLock(false);
+
+        partitionManager.rotate();
+
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(connection, never()).prepareStatement("SELECT RELEASE_LOCK(?)");
+    }
+}
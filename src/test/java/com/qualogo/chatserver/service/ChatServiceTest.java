@@ -1,6 +1,7 @@
 package com.qualogo.chatserver.service;
 
 import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
 import static org.mockito.Mockito.*;
 
 import com.qualogo.chatserver.repository.ChatMessageRepository;
@@ -10,22 +11,40 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(MockitoExtension.class)
 public class ChatServiceTest {
@@ -46,12 +65,29 @@ public class ChatServiceTest {
     private RedisTemplate<String, Object> redisTemplate;
 
     @Mock
-    private RateLimitingService rateLimitingService;
+    private ZSetOperations<String, Object> zSetOperations;
+
+    @Mock
+    private ListOperations<String, Object> listOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MessageTailCache messageTailCache;
+
+    @Mock
+    private MessageIdGenerator messageIdGenerator;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private static final long MESSAGE_ID = (86_400_000L << 22) + 1;
 
     @BeforeEach
     public void setUp() {
         SecurityContextHolder.setContext(securityContext);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
     }
 
     @Test
@@ -236,26 +272,15 @@ public class ChatServiceTest {
     @Test
     public void testJoinRoomWithValidUser() {
         when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl());
-        when(rateLimitingService.isAllowed(anyString())).thenReturn(true);
 
         String result = chatService.joinRoom();
         assertEquals("Welcome testUser, joined the chat room.", result);
     }
 
-    @Test
-    public void testJoinRoomWithRateLimitExceeded() {
-        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl());
-        when(rateLimitingService.isAllowed(anyString())).thenReturn(false);
-
-        String result = chatService.joinRoom();
-        assertEquals("Rate limit exceeded. Please try again later.", result);
-    }
-
     @Test
     public void testJoinRoomWithNullPrincipal() {
         when(authentication.getPrincipal()).thenReturn(null);
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed(anyString())).thenReturn(true);
 
         String result = chatService.joinRoom();
         assertEquals("Welcome Username: testUser, joined the chat room.", result);
@@ -265,7 +290,6 @@ public class ChatServiceTest {
     public void testJoinRoomWithEmptyUsername() {
         when(authentication.getPrincipal()).thenReturn(null);
         when(authentication.getName()).thenReturn("");
-        when(rateLimitingService.isAllowed(anyString())).thenReturn(true);
 
         String result = chatService.joinRoom();
         assertEquals("Welcome Username: , joined the chat room.", result);
@@ -275,58 +299,70 @@ public class ChatServiceTest {
     public void testJoinRoomWithException() {
         when(authentication.getPrincipal()).thenThrow(new RuntimeException("Test Exception"));
 
-        String result = chatService.joinRoom();
-        assertEquals("Rate limit exceeded. Please try again later.", result);
+        assertThrows(RuntimeException.class, () -> chatService.joinRoom());
+    }
+
+    /**
+     * Verifies that the message sent was inserted in the database and written to Redis in one transaction:
+     * its hash, its id appended to the room list and its id scored by timestamp in the room sorted set.
+     */
+    @SuppressWarnings("unchecked")
+    private void verifyStored(String username, String content) {
+        long timestamp = MessageIdGenerator.timestampOf(MESSAGE_ID);
+        ArgumentCaptor<ChatMessage> inserted = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(chatMessageRepository).insert(inserted.capture());
+        assertEquals(MESSAGE_ID, inserted.getValue().getId());
+        assertEquals("general", inserted.getValue().getRoomId());
+        assertEquals(username, inserted.getValue().getUsername());
+        assertEquals(content, inserted.getValue().getMessage());
+        assertEquals(timestamp, inserted.getValue().getTimestamp());
+
+        ArgumentCaptor<SessionCallback<Object>> callback = ArgumentCaptor.forClass(SessionCallback.class);
+        verify(redisTemplate).executePipelined(callback.capture());
+        RedisOperations<String, Object> operations = mock(RedisOperations.class);
+        when(operations.opsForHash()).thenReturn(hashOperations);
+        when(operations.opsForList()).thenReturn(listOperations);
+        when(operations.opsForZSet()).thenReturn(zSetOperations);
+        callback.getValue().execute(operations);
+
+        Map<String, Object> hash = new HashMap<>();
+        hash.put("id", MESSAGE_ID);
+        hash.put("room", "general");
+        hash.put("content", content);
+        hash.put("user", username);
+        hash.put("timestamp", timestamp);
+        InOrder inOrder = inOrder(operations, hashOperations, listOperations, zSetOperations);
+        inOrder.verify(operations).multi();
+        inOrder.verify(hashOperations).putAll("message:" + MESSAGE_ID, hash);
+        inOrder.verify(listOperations).rightPush("chatRoomMessages:general", MESSAGE_ID);
+        inOrder.verify(zSetOperations).add("chatRoomMessagesByTime:general", MESSAGE_ID, timestamp);
+        inOrder.verify(operations).exec();
+        verify(operations, never()).opsForStream();
     }
 
     @Test
     public void testSendMessageSuccess() {
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
 
-        ChatMessage chatMessage = new ChatMessage("testUser", "Hello");
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
-
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage("Hello");
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", "Hello");
-        verify(redisTemplate).opsForHash().put("message:1", "user", "testUser");
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
-    }
-
-    @Test
-    public void testSendMessageRateLimitExceeded() {
-        when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(false);
-
-        String result = chatService.sendMessage("Hello");
-        assertEquals("Rate limit exceeded. Please try again later.", result);
-
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
-        verify(redisTemplate, never()).opsForHash();
-        verify(redisTemplate, never()).opsForList();
-        verify(redisTemplate, never()).opsForZSet();
+        verifyStored("Username: testUser", "Hello");
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
     public void testSendMessageWithException() {
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
 
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenThrow(new RuntimeException("Database error"));
+        doThrow(new RuntimeException("Database error")).when(chatMessageRepository).insert(any(ChatMessage.class));
 
         String result = chatService.sendMessage("Hello");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
+        verify(chatMessageRepository).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -334,13 +370,10 @@ public class ChatServiceTest {
 
     @Test
     public void testSendMessageWithNullMessage() {
-        when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
-
         String result = chatService.sendMessage(null);
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -348,13 +381,10 @@ public class ChatServiceTest {
 
     @Test
     public void testSendMessageWithEmptyMessage() {
-        when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
-
         String result = chatService.sendMessage("");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -363,95 +393,55 @@ public class ChatServiceTest {
     @Test
     public void testSendMessageWithLongMessage() {
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
 
         String longMessage = "a".repeat(1000);
-        ChatMessage chatMessage = new ChatMessage("testUser", longMessage);
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
-
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage(longMessage);
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", longMessage);
-        verify(redisTemplate).opsForHash().put("message:1", "user", "testUser");
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
+        verifyStored("Username: testUser", longMessage);
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
     public void testSendMessageWithSpecialCharacters() {
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
 
         String specialMessage = "!@#$%^&*()_+";
-        ChatMessage chatMessage = new ChatMessage("testUser", specialMessage);
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
-
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage(specialMessage);
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", specialMessage);
-        verify(redisTemplate).opsForHash().put("message:1", "user", "testUser");
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
+        verifyStored("Username: testUser", specialMessage);
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
     public void testSendMessageWithNullUsername() {
         when(authentication.getName()).thenReturn(null);
-        when(rateLimitingService.isAllowed(null)).thenReturn(true);
-
-        ChatMessage chatMessage = new ChatMessage(null, "Hello");
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
 
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage("Hello");
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", "Hello");
-        verify(redisTemplate).opsForHash().put("message:1", "user", null);
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
+        verifyStored("Username: null", "Hello");
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
     public void testSendMessageWithEmptyUsername() {
         when(authentication.getName()).thenReturn("");
-        when(rateLimitingService.isAllowed("")).thenReturn(true);
-
-        ChatMessage chatMessage = new ChatMessage("", "Hello");
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
 
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage("Hello");
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", "Hello");
-        verify(redisTemplate).opsForHash().put("message:1", "user", "");
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
+        verifyStored("Username: ", "Hello");
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
@@ -461,7 +451,7 @@ public class ChatServiceTest {
         String result = chatService.sendMessage("Hello");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -470,24 +460,14 @@ public class ChatServiceTest {
     @Test
     public void testSendMessageWithAnonymousUser() {
         when(authentication.getName()).thenReturn("anonymousUser");
-        when(rateLimitingService.isAllowed("anonymousUser")).thenReturn(true);
 
-        ChatMessage chatMessage = new ChatMessage("anonymousUser", "Hello");
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
-
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage("Hello");
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", "Hello");
-        verify(redisTemplate).opsForHash().put("message:1", "user", "anonymousUser");
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
+        verifyStored("Username: anonymousUser", "Hello");
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
@@ -495,72 +475,42 @@ public class ChatServiceTest {
         UserDetailsImpl userDetails = mock(UserDetailsImpl.class);
         when(authentication.getPrincipal()).thenReturn(userDetails);
         when(userDetails.getUsername()).thenReturn("customUser");
-        when(rateLimitingService.isAllowed("customUser")).thenReturn(true);
 
-        ChatMessage chatMessage = new ChatMessage("customUser", "Hello");
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
-
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage("Hello");
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", "Hello");
-        verify(redisTemplate).opsForHash().put("message:1", "user", "customUser");
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
+        verifyStored("customUser", "Hello");
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
     public void testSendMessageWithNullUserDetails() {
         when(authentication.getPrincipal()).thenReturn(null);
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
 
-        ChatMessage chatMessage = new ChatMessage("testUser", "Hello");
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
-
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage("Hello");
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", "Hello");
-        verify(redisTemplate).opsForHash().put("message:1", "user", "testUser");
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
+        verifyStored("Username: testUser", "Hello");
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
     public void testSendMessageWithEmptyUserDetails() {
         when(authentication.getPrincipal()).thenReturn("");
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
-
-        ChatMessage chatMessage = new ChatMessage("testUser", "Hello");
-        chatMessage.setId(1L);
-        chatMessage.setTimestamp(System.currentTimeMillis());
 
-        when(chatMessageRepository.save(any(ChatMessage.class))).thenReturn(chatMessage);
+        when(messageIdGenerator.nextId()).thenReturn(MESSAGE_ID);
 
         String result = chatService.sendMessage("Hello");
         assertEquals("Message sent!", result);
 
-        verify(chatMessageRepository).save(any(ChatMessage.class));
-        verify(redisTemplate).opsForHash().put("message:1", "id", 1L);
-        verify(redisTemplate).opsForHash().put("message:1", "content", "Hello");
-        verify(redisTemplate).opsForHash().put("message:1", "user", "testUser");
-        verify(redisTemplate).opsForHash().put("message:1", "timestamp", chatMessage.getTimestamp());
-        verify(redisTemplate).opsForList().rightPush("chatRoomMessages", 1L);
-        verify(redisTemplate).opsForZSet().add("chatRoomMessagesByTime", 1L, chatMessage.getTimestamp());
+        verifyStored("Username: testUser", "Hello");
+        verify(eventPublisher).publishEvent(any(MessageSentEvent.class));
     }
 
     @Test
@@ -570,7 +520,7 @@ public class ChatServiceTest {
         String result = chatService.sendMessage("Hello");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -584,7 +534,7 @@ public class ChatServiceTest {
         String result = chatService.sendMessage("Hello");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -598,7 +548,7 @@ public class ChatServiceTest {
         String result = chatService.sendMessage("Hello");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -612,7 +562,7 @@ public class ChatServiceTest {
         String result = chatService.sendMessage("Hello");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -626,7 +576,7 @@ public class ChatServiceTest {
         String result = chatService.sendMessage("Hello");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -640,7 +590,7 @@ public class ChatServiceTest {
         String result = chatService.sendMessage("Hello");
         assertEquals("Error", result);
 
-        verify(chatMessageRepository, never()).save(any(ChatMessage.class));
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
         verify(redisTemplate, never()).opsForHash();
         verify(redisTemplate, never()).opsForList();
         verify(redisTemplate, never()).opsForZSet();
@@ -649,10 +599,11 @@ public class ChatServiceTest {
     @Test
     public void testGetMessagesSinceWithValidTimestamp() {
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
 
-        Set<Object> messageIds = new HashSet<>(Arrays.asList(1L, 2L));
-        when(redisTemplate.opsForZSet().rangeByScore(anyString(), anyDouble(), anyDouble())).thenReturn(messageIds);
+        Set<TypedTuple<Object>> messageIds = new LinkedHashSet<>(Arrays.asList(
+                TypedTuple.of(1L, 123456789.0), TypedTuple.of(2L, 123456790.0)));
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong())).thenReturn(messageIds);
 
         Map<Object, Object> messageMap1 = new HashMap<>();
         messageMap1.put("id", 1L);
@@ -666,20 +617,46 @@ public class ChatServiceTest {
         messageMap2.put("content", "Hi");
         messageMap2.put("timestamp", 123456790L);
 
-        when(redisTemplate.opsForHash().entries("message:1")).thenReturn(messageMap1);
-        when(redisTemplate.opsForHash().entries("message:2")).thenReturn(messageMap2);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList(messageMap1, messageMap2));
 
         List<ChatMessage> messages = chatService.getMessagesSince(123456788L);
 
         assertEquals(2, messages.size());
         assertEquals("Hello", messages.get(0).getMessage());
         assertEquals("Hi", messages.get(1).getMessage());
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(redisTemplate, never()).opsForHash();
+        verify(zSetOperations).rangeByScoreWithScores(eq("chatRoomMessagesByTime:general"), eq(123456788.0), anyDouble(), eq(0L), anyLong());
+    }
+
+    @Test
+    public void testGetMessagesSinceFetchesHashesInPages() {
+        ReflectionTestUtils.setField(chatService, "readPageSize", 2);
+
+        Set<TypedTuple<Object>> messageIds = new LinkedHashSet<>(Arrays.asList(
+                TypedTuple.of(1L, 123456789.0), TypedTuple.of(2L, 123456789.0), TypedTuple.of(3L, 123456789.0)));
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong())).thenReturn(messageIds);
+
+        Map<Object, Object> messageMap = new HashMap<>();
+        messageMap.put("id", 1L);
+        messageMap.put("user", "testUser");
+        messageMap.put("content", "Hello");
+        messageMap.put("timestamp", 123456789L);
+
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenReturn(Arrays.asList(messageMap, messageMap))
+                .thenReturn(Arrays.asList(new HashMap<>()));
+
+        List<ChatMessage> messages = chatService.getMessagesSince(123456788L);
+
+        assertEquals(2, messages.size());
+        verify(redisTemplate, times(2)).executePipelined(any(SessionCallback.class));
     }
 
     @Test
     public void testGetMessagesSinceWithEmptyCache() {
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
 
         when(redisTemplate.opsForZSet().rangeByScore(anyString(), anyDouble(), anyDouble())).thenReturn(Collections.emptySet());
 
@@ -691,7 +668,7 @@ public class ChatServiceTest {
         chatMessage.setTimestamp(123456789L);
         dbMessages.add(chatMessage);
 
-        when(chatMessageRepository.findAllByTimestampGreaterThan(anyLong())).thenReturn(dbMessages);
+        when(chatMessageRepository.findPageAfter(anyString(), anyLong(), anyLong(), any(Pageable.class))).thenReturn(dbMessages);
 
         List<ChatMessage> messages = chatService.getMessagesSince(123456788L);
 
@@ -700,25 +677,218 @@ public class ChatServiceTest {
     }
 
     @Test
-    public void testGetMessagesSinceWithRateLimitExceeded() {
-        when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(false);
+    public void testGetMessagesOrdersSameTimestampByIdAcrossPages() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        // Members sharing a score come back in serialized order, so 10 precedes 9
+        when(zSetOperations.rangeByScoreWithScores("chatRoomMessagesByTime:general", 100.0, Double.POSITIVE_INFINITY, 0L, 2L))
+                .thenReturn(new LinkedHashSet<>(Arrays.asList(TypedTuple.of(10L, 200.0), TypedTuple.of(11L, 200.0))));
+        when(zSetOperations.rangeByScoreWithScores("chatRoomMessagesByTime:general", 200.0, 200.0))
+                .thenReturn(new LinkedHashSet<>(Arrays.asList(TypedTuple.of(10L, 200.0), TypedTuple.of(11L, 200.0), TypedTuple.of(9L, 200.0))));
+
+        Map<Object, Object> messageMap = new HashMap<>();
+        messageMap.put("id", 9L);
+        messageMap.put("user", "testUser");
+        messageMap.put("content", "Hello");
+        messageMap.put("timestamp", 200L);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList(messageMap));
+
+        MessagePage page = chatService.getMessages("general", 100L, null, 1);
+
+        assertEquals(1, page.getMessages().size());
+        assertEquals(9L, page.getMessages().get(0).getId());
+        MessageCursor next = MessageCursor.decode(page.getNextCursor());
+        assertEquals(200L, next.getTimestamp());
+        assertEquals(9L, next.getId());
+        verify(chatMessageRepository, never()).findPageAfter(anyString(), anyLong(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    public void testGetMessagesAfterCursorFallsBackToDatabase() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                .thenReturn(Collections.emptySet());
+
+        ChatMessage first = new ChatMessage("general", "testUser", "Hello");
+        first.setId(4L);
+        first.setTimestamp(300L);
+        ChatMessage second = new ChatMessage("general", "testUser", "Hi");
+        second.setId(5L);
+        second.setTimestamp(301L);
+        when(chatMessageRepository.findPageAfter("general", 200L, 3L, PageRequest.of(0, 2)))
+                .thenReturn(new ArrayList<>(Arrays.asList(first, second)));
+
+        MessagePage page = chatService.getMessages("general", null, new MessageCursor(200L, 3L).encode(), 1);
+
+        assertEquals(1, page.getMessages().size());
+        assertEquals("Hello", page.getMessages().get(0).getMessage());
+        assertEquals(new MessageCursor(300L, 4L).encode(), page.getNextCursor());
+    }
+
+    @Test
+    public void testGetMessagesWithoutTimestampOrCursor() {
+        assertThrows(ResponseStatusException.class, () -> chatService.getMessages("general", null, null, 10));
+        assertThrows(ResponseStatusException.class, () -> chatService.getMessages("general", null, "not a cursor", 10));
+
+    }
+
+    @Test
+    public void testGetMessagesServedFromTailCache() {
+        MessagePage cached = new MessagePage(Arrays.asList(new ChatMessage(1L, "testUser", "Hello", 123456789L)), null);
+        when(messageTailCache.find(eq("general"), any(MessageCursor.class), anyInt())).thenReturn(cached);
 
         List<ChatMessage> messages = chatService.getMessagesSince(123456788L);
 
-        assertEquals(true, messages.isEmpty());
+        assertEquals(cached.getMessages(), messages);
+        verify(redisTemplate, never()).opsForZSet();
+        verify(messageTailCache, never()).seed(anyString(), any(MessageCursor.class), anyList(), anyLong());
     }
 
     @Test
-    public void testGetMessagesSinceWithException() {
+    public void testGetMessagesSeedsTailCache() {
+        when(messageTailCache.version("general")).thenReturn(7L);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                .thenReturn(Collections.emptySet());
+        when(chatMessageRepository.findPageAfter(anyString(), anyLong(), anyLong(), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
+
+        chatService.getMessagesSince(123456788L);
+
+        verify(messageTailCache).seed(eq("general"), any(MessageCursor.class), eq(Collections.emptyList()), eq(7L));
+    }
+
+    @Test
+    public void testSendMessageWriteBehindSkipsDatabase() {
+        ReflectionTestUtils.setField(chatService, "writeBehind", true);
         when(authentication.getName()).thenReturn("testUser");
-        when(rateLimitingService.isAllowed("testUser")).thenReturn(true);
+        when(messageIdGenerator.nextId()).thenReturn(42L);
 
-        when(redisTemplate.opsForZSet().rangeByScore(anyString(), anyDouble(), anyDouble())).thenThrow(new RuntimeException("Test Exception"));
+        assertEquals("Message sent!", chatService.sendMessage("general", "Hello"));
 
-        List<ChatMessage> messages = chatService.getMessagesSince(123456788L);
+        verify(chatMessageRepository, never()).insert(any(ChatMessage.class));
+        verify(redisTemplate).executePipelined(any(SessionCallback.class));
+        ArgumentCaptor<MessageSentEvent> captor = ArgumentCaptor.forClass(MessageSentEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(42L, captor.getValue().getMessage().getId());
+    }
 
-        assertEquals(true, messages.isEmpty());
+    @Test
+    public void testFindCursorOfGeneratedIdNeedsNoLookup() {
+        long messageId = (90_000_000_000L << 22) | (3L << 12) | 7L;
+
+        MessageCursor cursor = chatService.findCursorOfMessage("general", messageId);
+
+        assertEquals(MessageIdGenerator.EPOCH + 90_000_000_000L, cursor.getTimestamp());
+        assertEquals(messageId, cursor.getId());
+        verifyNoInteractions(redisTemplate, chatMessageRepository);
+    }
+
+    @Test
+    public void testDeleteMessageWithGeneratedIdReadsItsPartition() {
+        when(authentication.getName()).thenReturn("testUser");
+        long messageId = (90_000_000_000L << 22) | 7L;
+        long timestamp = MessageIdGenerator.EPOCH + 90_000_000_000L;
+        ChatMessage message = new ChatMessage(messageId, "general", "Username: testUser", "Hello", timestamp);
+        when(chatMessageRepository.findByIdAndTimestamp(messageId, timestamp)).thenReturn(Optional.of(message));
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        assertEquals("Successfully deleted the message", chatService.deleteMessage(messageId));
+
+        verify(chatMessageRepository, never()).findById(anyLong());
+        verify(chatMessageRepository).deleteByIdAndTimestamp(messageId, timestamp);
+    }
+
+    @Test
+    public void testDeleteMessageWriteBehindNotYetWritten() {
+        ReflectionTestUtils.setField(chatService, "writeBehind", true);
+        when(authentication.getName()).thenReturn("testUser");
+        when(chatMessageRepository.findById(42L)).thenReturn(Optional.empty());
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        Map<Object, Object> messageMap = new HashMap<>();
+        messageMap.put("id", 42L);
+        messageMap.put("room", "general");
+        messageMap.put("user", "Username: testUser");
+        messageMap.put("content", "Hello");
+        messageMap.put("timestamp", 123456789L);
+        when(hashOperations.entries("message:42")).thenReturn(messageMap);
+
+        assertEquals("Successfully deleted the message", chatService.deleteMessage(42L));
+
+        verify(redisTemplate).executePipelined(any(SessionCallback.class));
+        verify(chatMessageRepository, never()).deleteByIdAndTimestamp(anyLong(), anyLong());
+        verify(eventPublisher).publishEvent(any(MessageDeletedEvent.class));
+    }
+
+    @Test
+    public void testDeleteMessagePublishesEvent() {
+        when(authentication.getName()).thenReturn("testUser");
+        ChatMessage message = new ChatMessage("general", "Username: testUser", "Hello");
+        message.setId(1L);
+        when(chatMessageRepository.findById(1L)).thenReturn(Optional.of(message));
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        assertEquals("Successfully deleted the message", chatService.deleteMessage(1L));
+
+        ArgumentCaptor<MessageDeletedEvent> captor = ArgumentCaptor.forClass(MessageDeletedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(message, captor.getValue().getMessage());
+        verify(chatMessageRepository).deleteByIdAndTimestamp(1L, message.getTimestamp());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTrimMessagesBeforeRemovesExpiredMessagesOfEveryRoom() {
+        Cursor<String> keys = mock(Cursor.class);
+        when(keys.hasNext()).thenReturn(true, false);
+        when(keys.next()).thenReturn("chatRoomMessagesByTime:general");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(keys);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore("chatRoomMessagesByTime:general", Double.NEGATIVE_INFINITY, 999.0, 0L, 500L))
+                .thenReturn(new LinkedHashSet<>(Arrays.asList(1L, 2L)), Collections.emptySet());
+
+        assertEquals(2, chatService.trimMessagesBefore(1000L));
+
+        ArgumentCaptor<SessionCallback<Object>> callback = ArgumentCaptor.forClass(SessionCallback.class);
+        verify(redisTemplate).executePipelined(callback.capture());
+        RedisOperations<String, Object> operations = mock(RedisOperations.class);
+        ZSetOperations<String, Object> pipelinedZSet = mock(ZSetOperations.class);
+        when(operations.opsForList()).thenReturn(listOperations);
+        when(operations.opsForZSet()).thenReturn(pipelinedZSet);
+        callback.getValue().execute(operations);
+
+        verify(operations).delete("message:1");
+        verify(operations).delete("message:2");
+        verify(listOperations).remove("chatRoomMessages:general", 1, 1L);
+        verify(listOperations).remove("chatRoomMessages:general", 1, 2L);
+        verify(pipelinedZSet).remove("chatRoomMessagesByTime:general", 1L, 2L);
+        verify(keys).close();
+        verify(messageTailCache).invalidateAll();
+    }
+
+    @Test
+    public void testJoinRoomWithInvalidRoom() {
+        when(authentication.getName()).thenReturn("testUser");
+
+        assertEquals("Welcome Username: testUser, joined the chat room.", chatService.joinRoom("random"));
+        assertThrows(ResponseStatusException.class, () -> chatService.joinRoom("general:1"));
+        assertThrows(ResponseStatusException.class, () -> chatService.getMessagesSince("", 123456788L));
+
+        verify(redisTemplate, never()).opsForZSet();
+    }
+
+    @Test
+    public void testGetMessagesSinceWithException() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(eq("chatRoomMessagesByTime:general"), eq(123456788.0),
+                eq(Double.POSITIVE_INFINITY), anyLong(), anyLong())).thenThrow(new RuntimeException("Test Exception"));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> chatService.getMessagesSince(123456788L));
+
+        assertEquals("Test Exception", exception.getMessage());
+        verify(chatMessageRepository, never()).findPageAfter(anyString(), anyLong(), anyLong(), any(Pageable.class));
     }
 
     @Test
@@ -736,15 +906,14 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(true);
 
         String result = chatService.deleteMessage(messageId);
 
-        verify(redisTemplate).opsForHash().delete("message:" + messageId);
-        verify(redisTemplate).opsForList().remove("chatRoomMessages", 1, messageId);
-        verify(redisTemplate).opsForZSet().remove("chatRoomMessagesByTime", messageId);
-        verify(chatMessageRepository).deleteById(messageId);
+        verify(redisTemplate).delete("message:" + messageId);
+        verify(redisTemplate).opsForList().remove("chatRoomMessages:general", 1, messageId);
+        verify(redisTemplate).opsForZSet().remove("chatRoomMessagesByTime:general", messageId);
+        verify(chatMessageRepository).deleteByIdAndTimestamp(eq(messageId), anyLong());
 
         assertEquals("Successfully deleted the message", result);
     }
@@ -755,7 +924,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(false);
 
         String result = chatService.deleteMessage(messageId);
@@ -763,26 +931,12 @@ public class ChatServiceTest {
         assertEquals("Message not found", result);
     }
 
-    @Test
-    public void testDeleteMessage_RateLimitExceeded() {
-        long messageId = 1L;
-        String username = "testUser";
-
-        when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(false);
-
-        String result = chatService.deleteMessage(messageId);
-
-        assertEquals("Rate limit exceeded. Please try again later.", result);
-    }
-
     @Test
     public void testDeleteMessage_ExceptionHandling() {
         long messageId = 1L;
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenThrow(new RuntimeException("Test Exception"));
 
         String result = chatService.deleteMessage(messageId);
@@ -798,7 +952,7 @@ public class ChatServiceTest {
 
         String result = chatService.deleteMessage(messageId);
 
-        assertEquals("Rate limit exceeded. Please try again later.", result);
+        assertEquals("Message not found", result);
     }
 
     @Test
@@ -809,7 +963,7 @@ public class ChatServiceTest {
 
         String result = chatService.deleteMessage(messageId);
 
-        assertEquals("Rate limit exceeded. Please try again later.", result);
+        assertEquals("Message not found", result);
     }
 
     @Test
@@ -818,20 +972,16 @@ public class ChatServiceTest {
 
         when(securityContext.getAuthentication()).thenReturn(null);
 
-        String result = chatService.deleteMessage(messageId);
-
-        assertEquals("Rate limit exceeded. Please try again later.", result);
+        assertThrows(NullPointerException.class, () -> chatService.deleteMessage(messageId));
     }
 
     @Test
     public void testDeleteMessage_NullSecurityContext() {
         long messageId = 1L;
 
-        SecurityContextHolder.setContext(null);
-
-        String result = chatService.deleteMessage(messageId);
+        SecurityContextHolder.clearContext();
 
-        assertEquals("Rate limit exceeded. Please try again later.", result);
+        assertThrows(NullPointerException.class, () -> chatService.deleteMessage(messageId));
     }
 
     @Test
@@ -839,7 +989,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
 
         String result = chatService.deleteMessage(0L);
 
@@ -852,7 +1001,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(false);
 
         String result = chatService.deleteMessage(messageId);
@@ -866,7 +1014,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(false);
 
         String result = chatService.deleteMessage(messageId);
@@ -880,7 +1027,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(true);
 
         String result = chatService.deleteMessage(messageId);
@@ -894,7 +1040,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(false);
 
         String result = chatService.deleteMessage(messageId);
@@ -908,7 +1053,6 @@ public class ChatServiceTest {
         String username = "validUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(true);
 
         String result = chatService.deleteMessage(messageId);
@@ -922,11 +1066,10 @@ public class ChatServiceTest {
         String username = "invalidUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(false);
 
         String result = chatService.deleteMessage(messageId);
 
-        assertEquals("Rate limit exceeded. Please try again later.", result);
+        assertEquals("Message not found", result);
     }
 
     @Test
@@ -934,7 +1077,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
 
         String result = chatService.deleteMessage(0L);
 
@@ -947,7 +1089,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(true);
 
         String result = chatService.deleteMessage(messageId);
@@ -961,7 +1102,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(true);
 
         String result = chatService.deleteMessage(messageId);
@@ -975,7 +1115,6 @@ public class ChatServiceTest {
         String username = "testUser";
 
         when(authentication.getName()).thenReturn(username);
-        when(rateLimitingService.isAllowed(username)).thenReturn(true);
         when(chatMessageRepository.existsById(messageId)).thenReturn(false);
 
         String result = chatService.deleteMessage(messageId);
@@ -0,0 +1,178 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ChatStreamServiceTest {
+
+    @Mock
+    private ChatService chatService;
+
+    @InjectMocks
+    private ChatStreamService chatStreamService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(chatStreamService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(chatStreamService, "senderThreads", 2);
+        ReflectionTestUtils.setField(chatStreamService, "maxBacklog", 2);
+        chatStreamService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        chatStreamService.shutdown();
+    }
+
+    @Test
+    public void testSubscribeRegistersEmitter() {
+        SseEmitter emitter = chatStreamService.subscribe("general", null);
+
+        assertNotNull(emitter);
+        assertEquals(1, chatStreamService.getSubscriberCount());
+        verify(chatService, never()).findCursorOfMessage(anyString(), anyLong());
+    }
+
+    @Test
+    public void testSubscribeReplaysMessagesAfterLastEventId() {
+        MessageCursor cursor = new MessageCursor(123456788L, 5L);
+        when(chatService.findCursorOfMessage("general", 5L)).thenReturn(cursor);
+        when(chatService.findMessages("general", cursor, 2)).thenReturn(
+                new MessagePage(Arrays.asList(new ChatMessage(6L, "testUser", "Hello", 123456789L)), null));
+
+        chatStreamService.subscribe("general", 5L);
+
+        verify(chatService).findCursorOfMessage("general", 5L);
+        verify(chatService).findMessages("general", cursor, 2);
+        assertEquals(1, chatStreamService.getSubscriberCount());
+    }
+
+    @Test
+    public void testReplayIsBoundedAndClosesStreamWhenMoreRemain() {
+        MessageCursor cursor = new MessageCursor(123456788L, 5L);
+        MessageCursor nextCursor = new MessageCursor(123456790L, 7L);
+        when(chatService.findCursorOfMessage("general", 5L)).thenReturn(cursor);
+        when(chatService.findMessages("general", cursor, 2)).thenReturn(new MessagePage(Arrays.asList(
+                new ChatMessage(6L, "testUser", "Hello", 123456789L),
+                new ChatMessage(7L, "testUser", "Hi", 123456790L)), nextCursor.encode()));
+
+        chatStreamService.subscribe("general", 5L);
+
+        verify(chatService, times(1)).findMessages(anyString(), any(MessageCursor.class), anyInt());
+        assertEquals(0, chatStreamService.getSubscriberCount());
+    }
+
+    @Test
+    public void testMessageIsSentOffThePublisherThread() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+        chatStreamService.register("general", emitter);
+
+        chatStreamService.onMessageSent(new MessageSentEvent(new ChatMessage(1L, "general", "testUser", "Hello", 1L)));
+
+        assertTrue(emitter.sent.await(5, TimeUnit.SECONDS));
+        assertNotEquals(Thread.currentThread(), emitter.senderThread);
+        assertTrue(emitter.senderThread.getName().startsWith("sse-sender-"));
+    }
+
+    @Test
+    public void testSlowStreamDoesNotBlockPublisherAndIsDroppedWhenBehind() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(new CountDownLatch(0));
+        chatStreamService.register("general", slow);
+        chatStreamService.register("general", fast);
+
+        for (long id = 1; id <= 4; id++) {
+            chatStreamService.onMessageSent(new MessageSentEvent(new ChatMessage(id, "general", "testUser", "Hello", id)));
+            // The publisher returns while the slow stream is stuck on its first event, and the fast one keeps up
+            assertTrue(fast.awaitSent(id));
+        }
+
+        // One event in flight and two queued fill the slow stream, so the fourth one dropped it
+        assertEquals(1, chatStreamService.getSubscriberCount());
+        assertEquals(0, slow.sentCount.get());
+        release.countDown();
+    }
+
+    @Test
+    public void testFailedStreamIsDropped() throws InterruptedException {
+        CountDownLatch attempted = new CountDownLatch(1);
+        SseEmitter broken = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                attempted.countDown();
+                throw new IOException("Broken pipe");
+            }
+        };
+        chatStreamService.register("general", broken);
+
+        chatStreamService.onMessageSent(new MessageSentEvent(new ChatMessage(1L, "general", "testUser", "Hello", 1L)));
+
+        assertTrue(attempted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && chatStreamService.getSubscriberCount() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, chatStreamService.getSubscriberCount());
+    }
+
+    /**
+     * Emitter recording the thread events are written on, and blocking each write until released.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch release;
+
+        private final CountDownLatch sent = new CountDownLatch(1);
+
+        private final AtomicInteger sentCount = new AtomicInteger();
+
+        private volatile Thread senderThread;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            senderThread = Thread.currentThread();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+            sentCount.incrementAndGet();
+            sent.countDown();
+        }
+
+        boolean awaitSent(long count) throws InterruptedException {
+            for (int i = 0; i < 250 && sentCount.get() < count; i++) {
+                Thread.sleep(20);
+            }
+            return sentCount.get() >= count;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.qualogo.chatserver.service;
+
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+@ExtendWith(MockitoExtension.class)
+public class ChatWebSocketBroadcasterTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private ChatWebSocketBroadcaster broadcaster;
+
+    @Test
+    public void testOnMessageSentBroadcastsToRoomTopic() {
+        ChatMessage message = new ChatMessage(1L, "testUser", "Hello", 123456789L);
+        message.setRoomId("general");
+
+        broadcaster.onMessageSent(new MessageSentEvent(message));
+
+        verify(messagingTemplate).convertAndSend("/topic/chatRoom/general", message);
+    }
+}
@@ -0,0 +1,128 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+@ExtendWith(MockitoExtension.class)
+public class LocalTokenBucketLimiterTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @InjectMocks
+    private LocalTokenBucketLimiter limiter;
+
+    @Test
+    public void testBucketIsExhaustedWithoutRedis() {
+        assertTrue(limiter.tryAcquire("user1", 2, 2, 60000, 1).isAllowed());
+        assertTrue(limiter.tryAcquire("user1", 2, 2, 60000, 1).isAllowed());
+        assertFalse(limiter.tryAcquire("user1", 2, 2, 60000, 1).isAllowed());
+        assertTrue(limiter.tryAcquire("user2", 2, 2, 60000, 1).isAllowed());
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    public void testCostIsTakenFromBucket() {
+        assertTrue(limiter.tryAcquire("user1", 5, 5, 60000, 3).isAllowed());
+        assertFalse(limiter.tryAcquire("user1", 5, 5, 60000, 3).isAllowed());
+        assertTrue(limiter.tryAcquire("user1", 5, 5, 60000, 2).isAllowed());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSyncDrainsTokensConsumedByOtherNodes() {
+        limiter.tryAcquire("user1", 10, 10, 60000, 1);
+        // This node reported 1 token, the cluster total shows 9 more consumed elsewhere
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList(10L, true));
+
+        limiter.sync();
+
+        assertFalse(limiter.tryAcquire("user1", 10, 10, 60000, 1).isAllowed());
+        verify(redisTemplate).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    public void testDecisionReportsRemainingAndRetryAfter() {
+        RateLimitDecision first = limiter.tryAcquire("user1", 2, 60, 60000, 1);
+        assertTrue(first.isAllowed());
+        assertEquals(1, first.getRemaining());
+        assertEquals(0, first.getRetryAfterMillis());
+
+        limiter.tryAcquire("user1", 2, 60, 60000, 1);
+        RateLimitDecision denied = limiter.tryAcquire("user1", 2, 60, 60000, 1);
+        assertFalse(denied.isAllowed());
+        assertEquals(0, denied.getRemaining());
+        // One token is refilled every second
+        assertTrue(denied.getRetryAfterMillis() > 0 && denied.getRetryAfterMillis() <= 1001);
+    }
+
+    @Test
+    public void testBurstIsSeparateFromRefillRate() {
+        assertTrue(limiter.tryAcquire("user1", 1, 600, 60000, 1).isAllowed());
+        assertFalse(limiter.tryAcquire("user1", 1, 600, 60000, 1).isAllowed());
+    }
+
+    @Test
+    public void testIdleFullBucketsAreDropped() {
+        limiter.tryAcquire("user1", 10, 10, 1, 1);
+
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList(1L, true));
+        limiter.sync();
+        limiter.sync();
+
+        assertEquals(0, limiter.getBucketCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSyncFailureKeepsLocalLimits() {
+        limiter.tryAcquire("user1", 2, 2, 60000, 1);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenThrow(new RuntimeException("Redis down"));
+
+        limiter.sync();
+
+        assertTrue(limiter.tryAcquire("user1", 2, 2, 60000, 1).isAllowed());
+        assertFalse(limiter.tryAcquire("user1", 2, 2, 60000, 1).isAllowed());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRecreatedBucketDoesNotCountOwnConsumptionAsOtherNodes() throws InterruptedException {
+        // One token per millisecond, in a window of an hour
+        int capacity = 1000;
+        int limit = 3600000;
+        long window = 3600000;
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenReturn(Arrays.asList(500L, true), Arrays.asList(1500L, true));
+
+        assertTrue(limiter.tryAcquire("user1", capacity, limit, window, 500).isAllowed());
+        limiter.sync();
+        Thread.sleep(600);
+        limiter.sync();
+        assertEquals(0, limiter.getBucketCount());
+
+        // Back within the same window: the total of 1500 is 500 reported before the bucket was dropped plus 1000 now
+        assertTrue(limiter.tryAcquire("user1", capacity, limit, window, 1000).isAllowed());
+        limiter.sync();
+
+        RateLimitDecision next = limiter.tryAcquire("user1", capacity, limit, window, 1);
+        assertTrue(next.getRetryAfterMillis() < 100, "drained by its own earlier consumption: " + next.getRetryAfterMillis());
+        verify(redisTemplate, times(2)).executePipelined(any(SessionCallback.class));
+    }
+}
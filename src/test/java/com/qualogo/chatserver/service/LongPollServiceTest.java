@@ -0,0 +1,95 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.qualogo.chatserver.models.ChatMessage;
+
+@ExtendWith(MockitoExtension.class)
+public class LongPollServiceTest {
+
+    @Mock
+    private ChatService chatService;
+
+    @InjectMocks
+    private LongPollService longPollService;
+
+    @Test
+    public void testWaitCompletesImmediatelyWhenMessagesExist() {
+        List<ChatMessage> messages = List.of(new ChatMessage(1L, "testUser", "Hello", 123456789L));
+        when(chatService.findMessagesSince("general", 123456788L)).thenReturn(messages);
+
+        DeferredResult<List<ChatMessage>> result = longPollService.waitForMessagesSince("general", 123456788L);
+
+        assertTrue(result.hasResult());
+        assertEquals(messages, result.getResult());
+        assertEquals(0, longPollService.getPendingCount());
+    }
+
+    @Test
+    public void testWaitIsParkedUntilMessageIsSent() {
+        when(chatService.findMessagesSince("general", 123456788L)).thenReturn(Collections.emptyList());
+
+        DeferredResult<List<ChatMessage>> result = longPollService.waitForMessagesSince("general", 123456788L);
+
+        assertFalse(result.hasResult());
+        assertEquals(1, longPollService.getPendingCount());
+
+        ChatMessage message = new ChatMessage(1L, "testUser", "Hello", 123456789L);
+        message.setRoomId("general");
+        longPollService.onMessageSent(new MessageSentEvent(message));
+
+        assertEquals(List.of(message), result.getResult());
+        assertEquals(0, longPollService.getPendingCount());
+    }
+
+    @Test
+    public void testOlderMessageDoesNotCompleteParkedPoll() {
+        when(chatService.findMessagesSince("general", 123456788L)).thenReturn(Collections.emptyList());
+
+        DeferredResult<List<ChatMessage>> result = longPollService.waitForMessagesSince("general", 123456788L);
+        ChatMessage message = new ChatMessage(1L, "testUser", "Hello", 123456787L);
+        message.setRoomId("general");
+        longPollService.onMessageSent(new MessageSentEvent(message));
+
+        assertFalse(result.hasResult());
+    }
+
+    @Test
+    public void testMessageOfOtherRoomDoesNotCompleteParkedPoll() {
+        when(chatService.findMessagesSince("general", 123456788L)).thenReturn(Collections.emptyList());
+
+        DeferredResult<List<ChatMessage>> result = longPollService.waitForMessagesSince("general", 123456788L);
+        ChatMessage message = new ChatMessage(1L, "testUser", "Hello", 123456789L);
+        message.setRoomId("random");
+        longPollService.onMessageSent(new MessageSentEvent(message));
+
+        assertFalse(result.hasResult());
+        assertEquals(1, longPollService.getPendingCount());
+    }
+
+    @Test
+    public void testMessageCompletesOnlyThePollsOfItsRoom() {
+        when(chatService.findMessagesSince(anyString(), eq(123456788L))).thenReturn(Collections.emptyList());
+
+        DeferredResult<List<ChatMessage>> general = longPollService.waitForMessagesSince("general", 123456788L);
+        DeferredResult<List<ChatMessage>> random = longPollService.waitForMessagesSince("random", 123456788L);
+        ChatMessage message = new ChatMessage(1L, "testUser", "Hello", 123456789L);
+        message.setRoomId("random");
+        longPollService.onMessageSent(new MessageSentEvent(message));
+
+        assertFalse(general.hasResult());
+        assertEquals(List.of(message), random.getResult());
+        assertEquals(1, longPollService.getPendingCount());
+    }
+}
@@ -0,0 +1,49 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+public class MessageCursorTest {
+
+    @Test
+    public void testEncodeAndDecode() {
+        MessageCursor cursor = MessageCursor.decode(new MessageCursor(1620000000000L, 42L).encode());
+
+        assertEquals(1620000000000L, cursor.getTimestamp());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    public void testEncodeIsUrlSafe() {
+        String encoded = new MessageCursor(Long.MAX_VALUE, Long.MAX_VALUE).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    public void testDecodeInvalidCursor() {
+        assertThrows(ResponseStatusException.class, () -> MessageCursor.decode("!!!"));
+        assertThrows(ResponseStatusException.class, () -> MessageCursor.decode("MTIz"));
+        assertThrows(ResponseStatusException.class, () -> MessageCursor.decode("YTpi"));
+    }
+
+    @Test
+    public void testIsBefore() {
+        MessageCursor cursor = new MessageCursor(100L, 5L);
+
+        assertTrue(cursor.isBefore(101L, 1L));
+        assertTrue(cursor.isBefore(100L, 6L));
+        assertFalse(cursor.isBefore(100L, 5L));
+        assertFalse(cursor.isBefore(99L, 10L));
+    }
+
+    @Test
+    public void testSinceIncludesTimestamp() {
+        MessageCursor cursor = MessageCursor.since(100L);
+
+        assertTrue(cursor.isBefore(100L, 0L));
+        assertFalse(cursor.isBefore(99L, 0L));
+    }
+}
@@ -0,0 +1,94 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.repository.ChatMessageRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageExportServiceTest {
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @InjectMocks
+    private MessageExportService messageExportService;
+
+    @Test
+    public void testExportNdjsonWritesOneMessagePerLineAndClosesTheStream() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(chatMessageRepository.streamAfter("general", Long.MIN_VALUE, Long.MIN_VALUE)).thenReturn(Stream.of(
+                new ChatMessage(1L, "general", "alice", "Hello", 1000L),
+                new ChatMessage(2L, "general", "bob", "Hi\nthere", 2000L)).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = messageExportService.export("general", ExportFormat.NDJSON, out);
+
+        assertEquals(2, count);
+        assertTrue(closed.get());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":1"));
+        assertTrue(lines[0].contains("\"username\":\"alice\""));
+        assertTrue(lines[1].contains("\"message\":\"Hi\\nthere\""));
+    }
+
+    @Test
+    public void testExportCsvWritesHeaderAndQuotesFields() throws IOException {
+        when(chatMessageRepository.streamAfter("general", Long.MIN_VALUE, Long.MIN_VALUE)).thenReturn(Stream.of(
+                new ChatMessage(1L, "general", "alice", "Hello, \"world\"", 1000L),
+                new ChatMessage(2L, "general", "bob", "Hi", 2000L)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = messageExportService.export("general", ExportFormat.CSV, out);
+
+        assertEquals(2, count);
+        assertEquals("id,roomId,username,message,timestamp\r\n"
+                + "1,general,alice,\"Hello, \"\"world\"\"\",1000\r\n"
+                + "2,general,bob,Hi,2000\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExportOfEmptyRoomWritesNothingButTheHeader() throws IOException {
+        when(chatMessageRepository.streamAfter("empty", Long.MIN_VALUE, Long.MIN_VALUE)).thenReturn(Stream.empty());
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        assertEquals(0, messageExportService.export("empty", ExportFormat.NDJSON, ndjson));
+        when(chatMessageRepository.streamAfter("empty", Long.MIN_VALUE, Long.MIN_VALUE)).thenReturn(Stream.empty());
+        assertEquals(0, messageExportService.export("empty", ExportFormat.CSV, csv));
+
+        assertEquals("", ndjson.toString(StandardCharsets.UTF_8));
+        assertEquals("id,roomId,username,message,timestamp\r\n", csv.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExportRejectsInvalidRoom() {
+        assertThrows(ResponseStatusException.class,
+                () -> messageExportService.export("not a room", ExportFormat.NDJSON, new ByteArrayOutputStream()));
+        verifyNoInteractions(chatMessageRepository);
+    }
+
+    @Test
+    public void testCsvField() {
+        assertEquals("plain", MessageExportService.csvField("plain"));
+        assertEquals("", MessageExportService.csvField(null));
+        assertEquals("\"a,b\"", MessageExportService.csvField("a,b"));
+        assertEquals("\"line\r\nbreak\"", MessageExportService.csvField("line\r\nbreak"));
+        assertEquals("\"say \"\"hi\"\"\"", MessageExportService.csvField("say \"hi\""));
+    }
+}
@@ -0,0 +1,139 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageIdGeneratorTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @InjectMocks
+    private MessageIdGenerator messageIdGenerator;
+
+    @Test
+    public void testIdsIncreaseAndEmbedTimestamp() {
+        ReflectionTestUtils.setField(messageIdGenerator, "workerId", 5L);
+        messageIdGenerator.init();
+
+        long before = System.currentTimeMillis();
+        long previous = 0;
+        for (int i = 0; i < 10000; i++) {
+            long id = messageIdGenerator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        long after = System.currentTimeMillis();
+
+        long timestamp = MessageIdGenerator.timestampOf(previous);
+        assertTrue(timestamp >= before && timestamp <= after + 10);
+        assertEquals(5L, (previous >>> MessageIdGenerator.SEQUENCE_BITS) & MessageIdGenerator.MAX_WORKER_ID);
+        assertTrue(MessageIdGenerator.isGenerated(previous));
+        assertFalse(MessageIdGenerator.isGenerated(12345L));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    public void testIdsAreUniqueAcrossThreads() throws InterruptedException {
+        ReflectionTestUtils.setField(messageIdGenerator, "workerId", 1L);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    ids.add(messageIdGenerator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(20000, ids.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenLeaseResults(Long first, Long... next) {
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any(), any())).thenReturn(first, (Object[]) next);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWorkerIdLeasedFromRedis() {
+        ReflectionTestUtils.setField(messageIdGenerator, "workerId", -1L);
+        ReflectionTestUtils.setField(messageIdGenerator, "nodeId", "node-1");
+        ReflectionTestUtils.setField(messageIdGenerator, "leaseMs", 60000L);
+        givenLeaseResults(0L, 0L, 0L, 1L);
+
+        messageIdGenerator.init();
+
+        assertEquals(3L, messageIdGenerator.getWorkerId());
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("chat:node:worker:3")), eq("node-1"), eq("60000"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStartupFailsWhenRedisIsUnavailable() {
+        ReflectionTestUtils.setField(messageIdGenerator, "workerId", -1L);
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any(), any())).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        assertThrows(IllegalStateException.class, () -> messageIdGenerator.init());
+    }
+
+    @Test
+    public void testStartupFailsWhenEveryWorkerIdIsLeased() {
+        ReflectionTestUtils.setField(messageIdGenerator, "workerId", -1L);
+        givenLeaseResults(0L);
+
+        assertThrows(IllegalStateException.class, () -> messageIdGenerator.init());
+    }
+
+    @Test
+    public void testLeaseLostToAnotherNodeStopsIdGeneration() {
+        ReflectionTestUtils.setField(messageIdGenerator, "workerId", -1L);
+        givenLeaseResults(1L, 1L, 0L);
+        messageIdGenerator.init();
+
+        messageIdGenerator.renewLease();
+        messageIdGenerator.nextId();
+        messageIdGenerator.renewLease();
+
+        assertThrows(IllegalStateException.class, () -> messageIdGenerator.nextId());
+    }
+
+    @Test
+    public void testInvalidWorkerIdIsRejected() {
+        ReflectionTestUtils.setField(messageIdGenerator, "workerId", 1024L);
+
+        assertThrows(IllegalStateException.class, () -> messageIdGenerator.init());
+    }
+}
@@ -0,0 +1,163 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class MessagePersistenceBatcherTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private MessagePersistenceBatcher messagePersistenceBatcher;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(messagePersistenceBatcher, "enabled", true);
+        ReflectionTestUtils.setField(messagePersistenceBatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(messagePersistenceBatcher, "claimIdleMs", 10000L);
+        ReflectionTestUtils.setField(messagePersistenceBatcher, "consumerName", "node-1");
+    }
+
+    private static MapRecord<String, Object, Object> record(String id, Map<String, Object> fields) {
+        return MapRecord.<String, Object, Object>create(MessagePersistenceBatcher.STREAM_KEY, new HashMap<>(fields))
+                .withId(RecordId.of(id));
+    }
+
+    private static Map<Object, Object> hash(long id) {
+        Map<Object, Object> message = new HashMap<>();
+        message.put("id", id);
+        message.put("room", "general");
+        message.put("user", "testUser");
+        message.put("content", "Hello " + id);
+        message.put("timestamp", 1000L + id);
+        return message;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenNewEntries(List<MapRecord<String, Object, Object>> records) {
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(streamOperations.pending(eq(MessagePersistenceBatcher.STREAM_KEY), eq(MessagePersistenceBatcher.GROUP),
+                any(Range.class), anyLong())).thenReturn(new PendingMessages(MessagePersistenceBatcher.GROUP, Collections.emptyList()));
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class))).thenReturn(records);
+    }
+
+    @Test
+    public void testFlushWritesBatchInOneStatementAndAcknowledges() {
+        givenNewEntries(List.of(
+                record("1-0", MessagePersistenceBatcher.insertEntry(1L)),
+                record("2-0", MessagePersistenceBatcher.insertEntry(2L))));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(hash(1L), hash(2L)));
+
+        messagePersistenceBatcher.flush();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(sql.capture(), args.capture());
+        assertEquals("INSERT IGNORE INTO chat_message (id, room_id, username, message, timestamp) VALUES "
+                + "(?, ?, ?, ?, ?), (?, ?, ?, ?, ?)", sql.getValue());
+        assertArrayEquals(new Object[] {1L, "general", "testUser", "Hello 1", 1001L, 2L, "general", "testUser", "Hello 2", 1002L},
+                args.getValue());
+        verify(streamOperations).acknowledge(MessagePersistenceBatcher.STREAM_KEY, MessagePersistenceBatcher.GROUP,
+                RecordId.of("1-0"), RecordId.of("2-0"));
+        verify(streamOperations).delete(MessagePersistenceBatcher.STREAM_KEY, RecordId.of("1-0"), RecordId.of("2-0"));
+    }
+
+    @Test
+    public void testFlushSkipsDeletedMessagesAndAppliesDeletions() {
+        givenNewEntries(List.of(
+                record("1-0", MessagePersistenceBatcher.insertEntry(1L)),
+                record("2-0", MessagePersistenceBatcher.deleteEntry(1L, 1001L))));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(Collections.emptyMap()));
+
+        messagePersistenceBatcher.flush();
+
+        verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(Object[].class));
+        verify(jdbcTemplate).update("DELETE FROM chat_message WHERE (id = ? AND timestamp = ?)", 1L, 1001L);
+    }
+
+    @Test
+    public void testFailedWriteIsNotAcknowledged() {
+        givenNewEntries(List.of(record("1-0", MessagePersistenceBatcher.insertEntry(1L))));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(hash(1L)));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenThrow(new DataAccessResourceFailureException("Database down"));
+
+        messagePersistenceBatcher.flush();
+
+        verify(streamOperations, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushClaimsEntriesLeftByStoppedNode() {
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        PendingMessage stale = new PendingMessage(RecordId.of("1-0"), Consumer.from(MessagePersistenceBatcher.GROUP, "node-0"),
+                Duration.ofSeconds(30), 1);
+        PendingMessage recent = new PendingMessage(RecordId.of("2-0"), Consumer.from(MessagePersistenceBatcher.GROUP, "node-2"),
+                Duration.ofSeconds(1), 1);
+        when(streamOperations.pending(eq(MessagePersistenceBatcher.STREAM_KEY), eq(MessagePersistenceBatcher.GROUP),
+                any(Range.class), anyLong())).thenReturn(new PendingMessages(MessagePersistenceBatcher.GROUP, List.of(stale, recent)));
+        when(streamOperations.claim(MessagePersistenceBatcher.STREAM_KEY, MessagePersistenceBatcher.GROUP, "node-1",
+                Duration.ofMillis(10000), RecordId.of("1-0"))).thenReturn(List.of(record("1-0", MessagePersistenceBatcher.insertEntry(1L))));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(hash(1L)));
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenReturn(Collections.emptyList());
+
+        messagePersistenceBatcher.flush();
+
+        verify(streamOperations).acknowledge(MessagePersistenceBatcher.STREAM_KEY, MessagePersistenceBatcher.GROUP, RecordId.of("1-0"));
+    }
+
+    @Test
+    public void testFlushDoesNothingWhenDisabled() {
+        ReflectionTestUtils.setField(messagePersistenceBatcher, "enabled", false);
+
+        messagePersistenceBatcher.flush();
+
+        verifyNoInteractions(redisTemplate, jdbcTemplate);
+    }
+}
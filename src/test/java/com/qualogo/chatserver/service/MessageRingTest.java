@@ -0,0 +1,117 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
+
+public class MessageRingTest {
+
+    private static ChatMessage message(long id, long timestamp) {
+        ChatMessage message = new ChatMessage("general", "testUser", "Message " + id);
+        message.setId(id);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+
+    @Test
+    public void testPageReturnsMessagesInOrder() {
+        MessageRing ring = new MessageRing(4, MessageCursor.since(100L), Collections.emptyList());
+        ring.append(message(3L, 102L));
+        ring.append(message(1L, 100L));
+        ring.append(message(2L, 100L));
+
+        MessagePage page = ring.page(MessageCursor.since(100L), 10);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), page.getMessages().stream().map(ChatMessage::getId).toList());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testEvictionRaisesFloor() {
+        MessageRing ring = new MessageRing(2, MessageCursor.since(100L), Arrays.asList(message(1L, 100L), message(2L, 101L)));
+
+        ring.append(message(3L, 102L));
+
+        assertEquals(100L, ring.getFloor().getTimestamp());
+        assertEquals(1L, ring.getFloor().getId());
+        assertNull(ring.page(MessageCursor.since(100L), 10));
+        assertEquals(2, ring.page(new MessageCursor(100L, 1L), 10).getMessages().size());
+    }
+
+    @Test
+    public void testMessagesOlderThanFloorAreIgnored() {
+        MessageRing ring = new MessageRing(2, MessageCursor.since(100L), Collections.emptyList());
+
+        ring.append(message(1L, 99L));
+
+        assertTrue(ring.page(MessageCursor.since(100L), 10).getMessages().isEmpty());
+    }
+
+    @Test
+    public void testRemoveAndDuplicates() {
+        MessageRing ring = new MessageRing(4, MessageCursor.since(100L), Arrays.asList(message(1L, 100L), message(2L, 101L)));
+        ring.append(message(2L, 101L));
+
+        ring.remove(1L);
+
+        MessagePage page = ring.page(MessageCursor.since(100L), 10);
+        assertEquals(1, page.getMessages().size());
+        assertEquals(2L, page.getMessages().get(0).getId());
+    }
+
+    @Test
+    public void testPageLimit() {
+        MessageRing ring = new MessageRing(4, MessageCursor.since(100L), Arrays.asList(message(1L, 100L), message(2L, 101L)));
+
+        MessagePage page = ring.page(MessageCursor.since(100L), 1);
+
+        assertEquals(1, page.getMessages().size());
+        assertEquals(new MessageCursor(100L, 1L).encode(), page.getNextCursor());
+    }
+
+    @Test
+    public void testConcurrentAppendsKeepEveryMessageAfterFloor() throws Exception {
+        int writers = 4;
+        int perWriter = 500;
+        MessageRing ring = new MessageRing(64, MessageCursor.since(0L), Collections.emptyList());
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int writer = 0; writer < writers; writer++) {
+            int offset = writer;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perWriter; i++) {
+                    long id = (long) i * writers + offset + 1;
+                    ring.append(message(id, id));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        MessageCursor floor = ring.getFloor();
+        List<Long> ids = new ArrayList<>();
+        for (ChatMessage message : ring.page(floor, Integer.MAX_VALUE - 1).getMessages()) {
+            ids.add(message.getId());
+        }
+        List<Long> expected = new ArrayList<>();
+        for (long id = floor.getId() + 1; id <= (long) writers * perWriter; id++) {
+            expected.add(id);
+        }
+        assertEquals(expected, ids);
+    }
+}
@@ -0,0 +1,127 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.qualogo.chatserver.models.ChatMessage;
+import com.qualogo.chatserver.payload.response.MessagePage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MessageTailCacheTest {
+
+    private MessageTailCache messageTailCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        messageTailCache = new MessageTailCache();
+        ReflectionTestUtils.setField(messageTailCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(messageTailCache, "tailSize", 3);
+        ReflectionTestUtils.setField(messageTailCache, "maxRooms", 100L);
+        ReflectionTestUtils.setField(messageTailCache, "ttlSeconds", 60L);
+        messageTailCache.init();
+    }
+
+    private static ChatMessage message(long id, long timestamp) {
+        ChatMessage message = new ChatMessage("general", "testUser", "Message " + id);
+        message.setId(id);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+
+    @Test
+    public void testMissBeforeSeed() {
+        assertNull(messageTailCache.find("general", MessageCursor.since(100L), 10));
+        assertEquals(1.0, meterRegistry.get("chat.cache.tail.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void testSeededTailServesCoveredCursors() {
+        long version = messageTailCache.version("general");
+        messageTailCache.seed("general", MessageCursor.since(100L), Arrays.asList(message(1L, 100L), message(2L, 101L)), version);
+
+        MessagePage page = messageTailCache.find("general", MessageCursor.since(101L), 10);
+
+        assertEquals(1, page.getMessages().size());
+        assertEquals(2L, page.getMessages().get(0).getId());
+        assertNull(messageTailCache.find("general", MessageCursor.since(99L), 10));
+        assertEquals(1.0, meterRegistry.get("chat.cache.tail.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void testPageLimitReturnsNextCursor() {
+        long version = messageTailCache.version("general");
+        messageTailCache.seed("general", MessageCursor.since(100L), Arrays.asList(message(1L, 100L), message(2L, 101L)), version);
+
+        MessagePage page = messageTailCache.find("general", MessageCursor.since(100L), 1);
+
+        assertEquals(1, page.getMessages().size());
+        assertEquals(new MessageCursor(100L, 1L).encode(), page.getNextCursor());
+    }
+
+    @Test
+    public void testSeedIsDiscardedWhenRoomWasWrittenDuringLoad() {
+        long version = messageTailCache.version("general");
+        messageTailCache.onMessageSent(new MessageSentEvent(message(3L, 102L)));
+        messageTailCache.seed("general", MessageCursor.since(100L), Collections.emptyList(), version);
+
+        assertNull(messageTailCache.find("general", MessageCursor.since(100L), 10));
+    }
+
+    @Test
+    public void testInvalidateAllDropsTailsAndPendingSeeds() {
+        long version = messageTailCache.version("general");
+        messageTailCache.seed("general", MessageCursor.since(100L), Arrays.asList(message(1L, 100L)), version);
+
+        messageTailCache.invalidateAll();
+        messageTailCache.seed("general", MessageCursor.since(100L), Arrays.asList(message(1L, 100L)), version);
+
+        assertNull(messageTailCache.find("general", MessageCursor.since(100L), 10));
+    }
+
+    @Test
+    public void testSentAndDeletedMessagesUpdateTail() {
+        messageTailCache.seed("general", MessageCursor.since(100L), Arrays.asList(message(1L, 100L)), messageTailCache.version("general"));
+
+        messageTailCache.onMessageSent(new MessageSentEvent(message(2L, 101L), true));
+        messageTailCache.onMessageSent(new MessageSentEvent(message(2L, 101L)));
+        messageTailCache.onMessageDeleted(new MessageDeletedEvent(message(1L, 100L)));
+
+        MessagePage page = messageTailCache.find("general", MessageCursor.since(100L), 10);
+        assertEquals(1, page.getMessages().size());
+        assertEquals(2L, page.getMessages().get(0).getId());
+    }
+
+    @Test
+    public void testTailIsBoundedAndRaisesFloor() {
+        messageTailCache.seed("general", MessageCursor.since(100L), Arrays.asList(message(1L, 100L), message(2L, 101L), message(3L, 102L)),
+                messageTailCache.version("general"));
+
+        messageTailCache.onMessageSent(new MessageSentEvent(message(4L, 103L)));
+
+        assertNull(messageTailCache.find("general", MessageCursor.since(100L), 10));
+        MessagePage page = messageTailCache.find("general", new MessageCursor(100L, 1L), 10);
+        assertEquals(3, page.getMessages().size());
+        assertEquals(4L, page.getMessages().get(2).getId());
+    }
+
+    @Test
+    public void testSeedKeepsNewestMessagesWhenLoadExceedsTailSize() {
+        messageTailCache.seed("general", MessageCursor.since(100L),
+                Arrays.asList(message(1L, 100L), message(2L, 101L), message(3L, 102L), message(4L, 103L)),
+                messageTailCache.version("general"));
+
+        assertNull(messageTailCache.find("general", MessageCursor.since(100L), 10));
+        assertEquals(3, messageTailCache.find("general", new MessageCursor(100L, 1L), 10).getMessages().size());
+        assertEquals(1L, messageTailCache.getRoomCount());
+    }
+}
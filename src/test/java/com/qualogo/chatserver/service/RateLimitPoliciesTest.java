@@ -0,0 +1,100 @@
+package com.qualogo.chatserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RateLimitPoliciesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MockEnvironment environment;
+
+    private RateLimitPolicies rateLimitPolicies;
+
+    @BeforeEach
+    public void setUp() {
+        environment = new MockEnvironment()
+                .withProperty("rate.limit.maxRequests", "100")
+                .withProperty("rate.limit.timeWindow", "60")
+                .withProperty("rate.limit.policy.send.limit", "30")
+                .withProperty("rate.limit.policy.send.burst", "5")
+                .withProperty("rate.limit.policy.send.cost", "2");
+        rateLimitPolicies = new RateLimitPolicies();
+        ReflectionTestUtils.setField(rateLimitPolicies, "environment", environment);
+    }
+
+    @Test
+    public void testPoliciesFromProperties() {
+        rateLimitPolicies.init();
+
+        RateLimitPolicy send = rateLimitPolicies.get(RateLimitOperation.SEND);
+        assertEquals(30, send.getLimit());
+        assertEquals(60, send.getWindowSeconds());
+        assertEquals(5, send.getBurst());
+        assertEquals(2, send.getCost());
+
+        RateLimitPolicy receive = rateLimitPolicies.get(RateLimitOperation.RECEIVE);
+        assertEquals(100, receive.getLimit());
+        assertEquals(100, receive.getBurst());
+        assertEquals(1, receive.getCost());
+    }
+
+    @Test
+    public void testPolicyFileOverridesAndIsReloaded() throws IOException {
+        Path file = tempDir.resolve("rate-limit.properties");
+        Files.writeString(file, "rate.limit.policy.send.limit=10\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1000));
+        ReflectionTestUtils.setField(rateLimitPolicies, "policyFile", file.toString());
+        rateLimitPolicies.init();
+        assertEquals(10, rateLimitPolicies.get(RateLimitOperation.SEND).getLimit());
+
+        Files.writeString(file, "rate.limit.policy.send.limit=20\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2000));
+        rateLimitPolicies.reloadIfChanged();
+
+        assertEquals(20, rateLimitPolicies.get(RateLimitOperation.SEND).getLimit());
+        assertEquals(5, rateLimitPolicies.get(RateLimitOperation.SEND).getBurst());
+    }
+
+    @Test
+    public void testInvalidPolicyKeepsCurrentPolicies() throws IOException {
+        Path file = tempDir.resolve("rate-limit.properties");
+        ReflectionTestUtils.setField(rateLimitPolicies, "policyFile", file.toString());
+        rateLimitPolicies.init();
+
+        Files.writeString(file, "rate.limit.policy.join.limit=-1\n");
+        rateLimitPolicies.reloadIfChanged();
+
+        assertEquals(100, rateLimitPolicies.get(RateLimitOperation.JOIN).getLimit());
+    }
+
+    @Test
+    public void testCostAboveBurstIsRejected() throws IOException {
+        Path file = tempDir.resolve("rate-limit.properties");
+        ReflectionTestUtils.setField(rateLimitPolicies, "policyFile", file.toString());
+        rateLimitPolicies.init();
+
+        Files.writeString(file, "rate.limit.policy.send.cost=6\n");
+        rateLimitPolicies.reloadIfChanged();
+
+        assertEquals(2, rateLimitPolicies.get(RateLimitOperation.SEND).getCost());
+    }
+
+    @Test
+    public void testInvalidPolicyFailsStartup() {
+        environment.setProperty("rate.limit.policy.send.cost", "6");
+
+        assertThrows(IllegalStateException.class, () -> rateLimitPolicies.init());
+    }
+}
@@ -3,6 +3,8 @@ package com.qualogo.chatserver.service;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -10,8 +12,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 public class RateLimitingServiceTest {
 
@@ -21,6 +26,12 @@ public class RateLimitingServiceTest {
     @Mock
     private ValueOperations<String, Object> valueOperations;
 
+    @Mock
+    private LocalTokenBucketLimiter localTokenBucketLimiter;
+
+    @Mock
+    private RateLimitPolicies rateLimitPolicies;
+
     @InjectMocks
     private RateLimitingService rateLimitingService;
 
@@ -87,4 +98,99 @@ public class RateLimitingServiceTest {
         assertTrue(result); // The method should still return true as the increment was successful
         verify(redisTemplate).expire("rateLimit:" + userId, 60, TimeUnit.SECONDS);
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIsAllowed_SlidingWindowRunsScript() {
+        rateLimitingService.setAlgorithm(RateLimitingService.SLIDING_WINDOW);
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(Collections.singletonList("rateLimit:sliding:user1")), eq("5"), eq("60000"), eq("1")))
+                .thenReturn(Arrays.asList(1L, 4L, 0L));
+
+        assertTrue(rateLimitingService.isAllowed("user1"));
+        verify(valueOperations, never()).increment(anyString(), anyLong());
+        verify(redisTemplate, never()).expire(anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIsAllowed_SlidingWindowRejects() {
+        rateLimitingService.setAlgorithm(RateLimitingService.SLIDING_WINDOW);
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any(), any(), any())).thenReturn(Arrays.asList(0L, 0L, 1500L));
+
+        assertFalse(rateLimitingService.isAllowed("user1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCheck_GcraRunsScriptWithEmissionInterval() {
+        rateLimitingService.setAlgorithm(RateLimitingService.GCRA);
+        when(rateLimitPolicies.get(RateLimitOperation.SEND)).thenReturn(new RateLimitPolicy(300, 60, 50, 10));
+        // 300 per minute is one unit every 200 ms
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(Collections.singletonList("rateLimit:gcra:send:user1")), eq("200"), eq("50"), eq("10")))
+                .thenReturn(Arrays.asList(0L, 3L, 1400L));
+
+        RateLimitDecision decision = rateLimitingService.check("user1", RateLimitOperation.SEND);
+
+        assertFalse(decision.isAllowed());
+        assertEquals(3, decision.getRemaining());
+        assertEquals(1400, decision.getRetryAfterMillis());
+        verify(valueOperations, never()).increment(anyString(), anyLong());
+    }
+
+    @Test
+    public void testCheck_FixedWindowReportsRemainingAndExpiry() {
+        when(rateLimitPolicies.get(RateLimitOperation.JOIN)).thenReturn(new RateLimitPolicy(5, 60, 5, 1));
+        when(valueOperations.increment("rateLimit:join:user1", 1)).thenReturn(2L, 6L);
+        when(redisTemplate.getExpire("rateLimit:join:user1", TimeUnit.MILLISECONDS)).thenReturn(42000L);
+
+        RateLimitDecision allowed = rateLimitingService.check("user1", RateLimitOperation.JOIN);
+        assertTrue(allowed.isAllowed());
+        assertEquals(3, allowed.getRemaining());
+
+        RateLimitDecision denied = rateLimitingService.check("user1", RateLimitOperation.JOIN);
+        assertFalse(denied.isAllowed());
+        assertEquals(0, denied.getRemaining());
+        assertEquals(42000, denied.getRetryAfterMillis());
+    }
+
+    @Test
+    public void testIsAllowed_LocalTokenBucketSkipsRedis() {
+        rateLimitingService.setAlgorithm(RateLimitingService.LOCAL_TOKEN_BUCKET);
+        when(localTokenBucketLimiter.tryAcquire("user1", 5, 5, 60000L, 1)).thenReturn(
+                new RateLimitDecision(true, 0, 0), new RateLimitDecision(false, 0, 12000));
+
+        assertTrue(rateLimitingService.isAllowed("user1"));
+        assertFalse(rateLimitingService.isAllowed("user1"));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    public void testIsAllowed_OperationUsesItsPolicyAndCounter() {
+        when(rateLimitPolicies.get(RateLimitOperation.SEND)).thenReturn(new RateLimitPolicy(30, 10, 30, 3));
+        when(valueOperations.increment("rateLimit:send:user1", 3)).thenReturn(3L, 33L);
+
+        assertTrue(rateLimitingService.isAllowed("user1", RateLimitOperation.SEND));
+        assertFalse(rateLimitingService.isAllowed("user1", RateLimitOperation.SEND));
+        verify(redisTemplate, times(1)).expire("rateLimit:send:user1", 10, TimeUnit.SECONDS);
+        verify(valueOperations, never()).increment(eq("rateLimit:user1"), anyLong());
+    }
+
+    @Test
+    public void testIsAllowed_OperationWithLocalTokenBucket() {
+        rateLimitingService.setAlgorithm(RateLimitingService.LOCAL_TOKEN_BUCKET);
+        when(rateLimitPolicies.get(RateLimitOperation.RECEIVE)).thenReturn(new RateLimitPolicy(600, 60, 50, 1));
+        when(localTokenBucketLimiter.tryAcquire("receive:user1", 50, 600, 60000L, 1))
+                .thenReturn(new RateLimitDecision(true, 49, 0));
+
+        assertTrue(rateLimitingService.isAllowed("user1", RateLimitOperation.RECEIVE));
+    }
+
+    @Test
+    public void testSlidingWindowScriptIsOnClasspath() {
+        assertTrue(new ClassPathResource("scripts/sliding_window_rate_limit.lua").exists());
+        assertTrue(new ClassPathResource("scripts/gcra_rate_limit.lua").exists());
+    }
+}